@@ -0,0 +1,284 @@
+package com.mpesa.acquisition.archive;
+
+import com.mpesa.acquisition.entity.TransactionHistory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only view of one archive segment written by ArchiveSegmentWriter, memory-mapped.
+ *
+ * The block index is loaded into memory when the segment is opened; the transaction ID
+ * index is binary searched in place. Only the columns a lookup needs are inflated.
+ */
+final class ArchiveSegment {
+
+    private static final TransactionHistory.TransactionStatus[] STATUSES = TransactionHistory.TransactionStatus.values();
+
+    private final Path path;
+    private final YearMonth month;
+    private final MappedByteBuffer buffer;
+
+    private final long[] blockOffsets;
+    private final String[] firstAccountNumbers;
+    private final String[] lastAccountNumbers;
+
+    private final int transactionIdCount;
+    private final int transactionIdOffsetsStart;
+    private final int transactionIdEntriesStart;
+
+    private final long[] statusCounts = new long[STATUSES.length];
+
+    ArchiveSegment(Path path, YearMonth month) throws IOException {
+        this.path = path;
+        this.month = month;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Archive segment " + path + " is larger than 2GB");
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        int size = buffer.capacity();
+        if (size < 2 * Integer.BYTES + ArchiveSegmentWriter.TRAILER_BYTES
+                || buffer.getInt(0) != ArchiveSegmentWriter.MAGIC
+                || buffer.getInt(size - Integer.BYTES) != ArchiveSegmentWriter.MAGIC) {
+            throw new IOException("Archive segment " + path + " is incomplete or corrupt");
+        }
+        if (buffer.getInt(Integer.BYTES) != ArchiveSegmentWriter.VERSION) {
+            throw new IOException("Archive segment " + path + " has unsupported version " + buffer.getInt(Integer.BYTES));
+        }
+
+        int trailer = size - ArchiveSegmentWriter.TRAILER_BYTES;
+        int blockIndexOffset = (int) buffer.getLong(trailer);
+        int transactionIdIndexOffset = (int) buffer.getLong(trailer + Long.BYTES);
+        int statusCountsOffset = (int) buffer.getLong(trailer + 2 * Long.BYTES);
+
+        ByteBuffer blockIndex = buffer.duplicate().position(blockIndexOffset);
+        int blockCount = blockIndex.getInt();
+        blockOffsets = new long[blockCount];
+        firstAccountNumbers = new String[blockCount];
+        lastAccountNumbers = new String[blockCount];
+        for (int b = 0; b < blockCount; b++) {
+            blockOffsets[b] = blockIndex.getLong();
+            firstAccountNumbers[b] = readString(blockIndex);
+            lastAccountNumbers[b] = readString(blockIndex);
+        }
+
+        transactionIdCount = buffer.getInt(transactionIdIndexOffset);
+        transactionIdOffsetsStart = transactionIdIndexOffset + Integer.BYTES;
+        transactionIdEntriesStart = transactionIdOffsetsStart + transactionIdCount * Integer.BYTES;
+
+        ByteBuffer counts = buffer.duplicate().position(statusCountsOffset);
+        int statuses = counts.getInt();
+        for (int i = 0; i < statuses && i < statusCounts.length; i++) {
+            statusCounts[i] = counts.getLong();
+        }
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    YearMonth getMonth() {
+        return month;
+    }
+
+    long getCount(TransactionHistory.TransactionStatus status) {
+        return statusCounts[status.ordinal()];
+    }
+
+    Optional<TransactionHistory> findByTransactionId(String transactionId) {
+        int low = 0;
+        int high = transactionIdCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            ByteBuffer entry = buffer.duplicate()
+                .position(transactionIdEntriesStart + buffer.getInt(transactionIdOffsetsStart + mid * Integer.BYTES));
+            int comparison = readString(entry).compareTo(transactionId);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                int block = entry.getInt();
+                int row = entry.getShort();
+                return Optional.of(readBlock(block).row(row));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Up to limit rows for the account, newest first, starting after the given (created_at, id)
+     * position or from the newest row when it is null. An account's rows are stored newest
+     * first, so the lookup skips to the position and stops once the page is full.
+     */
+    List<TransactionHistory> findPage(String accountNumber, LocalDateTime beforeCreatedAt, long beforeId, int limit) {
+        List<TransactionHistory> rows = new ArrayList<>();
+        for (int b = firstBlockEndingAtOrAfter(accountNumber); b < blockOffsets.length && rows.size() < limit; b++) {
+            if (firstAccountNumbers[b].compareTo(accountNumber) > 0) {
+                break;
+            }
+            Block block = readBlock(b);
+            String[] accountNumbers = block.strings(ArchiveSegmentWriter.COLUMN_ACCOUNT_NUMBER);
+            for (int row = 0; row < accountNumbers.length && rows.size() < limit; row++) {
+                if (accountNumbers[row].equals(accountNumber)
+                        && (beforeCreatedAt == null || block.isBefore(row, beforeCreatedAt, beforeId))) {
+                    rows.add(block.row(row));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Visit every row; only the account number, amount, status and created_at columns are read.
+     */
+    void forEachSummaryRow(Consumer<TransactionHistory> consumer) {
+        for (int b = 0; b < blockOffsets.length; b++) {
+            Block block = readBlock(b);
+            String[] accountNumbers = block.strings(ArchiveSegmentWriter.COLUMN_ACCOUNT_NUMBER);
+            ByteBuffer amounts = block.column(ArchiveSegmentWriter.COLUMN_AMOUNT);
+            ByteBuffer statuses = block.column(ArchiveSegmentWriter.COLUMN_STATUS);
+            ByteBuffer createdAts = block.column(ArchiveSegmentWriter.COLUMN_CREATED_AT);
+            for (String accountNumber : accountNumbers) {
+                TransactionHistory row = new TransactionHistory();
+                row.setAccountNumber(accountNumber);
+                row.setAmount(BigDecimal.valueOf(amounts.getLong(), ArchiveSegmentWriter.AMOUNT_SCALE));
+                row.setStatus(STATUSES[statuses.get()]);
+                row.setCreatedAt(ArchiveSegmentWriter.fromEpochMicros(createdAts.getLong()));
+                consumer.accept(row);
+            }
+        }
+    }
+
+    // Blocks are sorted by account number, so the first candidate is found by binary search
+    private int firstBlockEndingAtOrAfter(String accountNumber) {
+        int low = 0;
+        int high = blockOffsets.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (lastAccountNumbers[mid].compareTo(accountNumber) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Block readBlock(int block) {
+        ByteBuffer in = buffer.duplicate().position((int) blockOffsets[block]);
+        int rows = in.getInt();
+        int columns = in.getInt();
+        int[] columnOffsets = new int[columns];
+        int[] rawLengths = new int[columns];
+        int[] compressedLengths = new int[columns];
+        for (int c = 0; c < columns; c++) {
+            rawLengths[c] = in.getInt();
+            compressedLengths[c] = in.getInt();
+            columnOffsets[c] = in.position();
+            in.position(in.position() + compressedLengths[c]);
+        }
+        return new Block(rows, columnOffsets, rawLengths, compressedLengths);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private final class Block {
+        private final int rows;
+        private final int[] columnOffsets;
+        private final int[] rawLengths;
+        private final int[] compressedLengths;
+        private final ByteBuffer[] inflated;
+        private final String[][] decoded;
+
+        Block(int rows, int[] columnOffsets, int[] rawLengths, int[] compressedLengths) {
+            this.rows = rows;
+            this.columnOffsets = columnOffsets;
+            this.rawLengths = rawLengths;
+            this.compressedLengths = compressedLengths;
+            this.inflated = new ByteBuffer[columnOffsets.length];
+            this.decoded = new String[columnOffsets.length][];
+        }
+
+        ByteBuffer column(int column) {
+            if (inflated[column] == null) {
+                ByteBuffer compressed = buffer.slice(columnOffsets[column], compressedLengths[column]);
+                ByteBuffer raw = ByteBuffer.allocate(rawLengths[column]);
+                Inflater inflater = new Inflater();
+                try {
+                    inflater.setInput(compressed);
+                    while (raw.hasRemaining() && !inflater.finished()) {
+                        if (inflater.inflate(raw) == 0 && inflater.needsInput()) {
+                            break;
+                        }
+                    }
+                } catch (DataFormatException e) {
+                    throw new IllegalStateException("Corrupt column in archive segment " + path, e);
+                } finally {
+                    inflater.end();
+                }
+                inflated[column] = raw.flip();
+            }
+            return inflated[column].duplicate();
+        }
+
+        // Decoded once per block; callers must not modify the array
+        String[] strings(int column) {
+            if (decoded[column] == null) {
+                ByteBuffer in = column(column);
+                String[] values = new String[rows];
+                for (int row = 0; row < rows; row++) {
+                    values[row] = readString(in);
+                }
+                decoded[column] = values;
+            }
+            return decoded[column];
+        }
+
+        // Whether the row sorts after the (created_at, id) position in newest-first order
+        boolean isBefore(int row, LocalDateTime createdAt, long id) {
+            int comparison = ArchiveSegmentWriter.fromEpochMicros(
+                column(ArchiveSegmentWriter.COLUMN_CREATED_AT).getLong(row * Long.BYTES)).compareTo(createdAt);
+            return comparison < 0 || (comparison == 0 && column(ArchiveSegmentWriter.COLUMN_ID).getLong(row * Long.BYTES) < id);
+        }
+
+        TransactionHistory row(int row) {
+            TransactionHistory transaction = new TransactionHistory();
+            transaction.setAccountNumber(strings(ArchiveSegmentWriter.COLUMN_ACCOUNT_NUMBER)[row]);
+            transaction.setTransactionId(strings(ArchiveSegmentWriter.COLUMN_TRANSACTION_ID)[row]);
+            transaction.setId(column(ArchiveSegmentWriter.COLUMN_ID).getLong(row * Long.BYTES));
+            transaction.setAmount(BigDecimal.valueOf(column(ArchiveSegmentWriter.COLUMN_AMOUNT).getLong(row * Long.BYTES),
+                ArchiveSegmentWriter.AMOUNT_SCALE));
+            transaction.setNarration(strings(ArchiveSegmentWriter.COLUMN_NARRATION)[row]);
+            transaction.setStatus(STATUSES[column(ArchiveSegmentWriter.COLUMN_STATUS).get(row)]);
+            transaction.setCreatedAt(ArchiveSegmentWriter.fromEpochMicros(
+                column(ArchiveSegmentWriter.COLUMN_CREATED_AT).getLong(row * Long.BYTES)));
+            return transaction;
+        }
+    }
+}
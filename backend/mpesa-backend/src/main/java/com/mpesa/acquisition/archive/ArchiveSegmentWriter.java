@@ -0,0 +1,232 @@
+package com.mpesa.acquisition.archive;
+
+import com.mpesa.acquisition.entity.TransactionHistory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Writes one archive segment. Rows must be appended in (account_number, created_at DESC,
+ * id DESC) order.
+ *
+ * Layout:
+ * <pre>
+ * [magic][version]
+ * blocks of up to BLOCK_ROWS rows: [row count][column count] then per column
+ *     [uncompressed length][compressed length][deflated column values]
+ * block index:          [block count] then per block [offset][first account][last account]
+ * transaction ID index: [entry count][entry offsets] then entries sorted by transaction ID
+ *                       [transaction ID][block][row]
+ * status counts:        [status count][rows per status]
+ * trailer:              [block index offset][transaction ID index offset][status counts offset][magic]
+ * </pre>
+ * Strings are an int byte length (-1 for null) followed by UTF-8 bytes.
+ */
+final class ArchiveSegmentWriter {
+
+    static final int MAGIC = 0x4D504152;
+    static final int VERSION = 1;
+    static final int BLOCK_ROWS = 1024;
+    static final int TRAILER_BYTES = 3 * Long.BYTES + Integer.BYTES;
+
+    static final int COLUMN_ACCOUNT_NUMBER = 0;
+    static final int COLUMN_TRANSACTION_ID = 1;
+    static final int COLUMN_ID = 2;
+    static final int COLUMN_AMOUNT = 3;
+    static final int COLUMN_NARRATION = 4;
+    static final int COLUMN_STATUS = 5;
+    static final int COLUMN_CREATED_AT = 6;
+    static final int COLUMN_COUNT = 7;
+
+    // Amounts are numeric(15,2) and stored as unscaled longs
+    static final int AMOUNT_SCALE = 2;
+
+    private final FileChannel channel;
+    private final List<TransactionHistory> block = new ArrayList<>(BLOCK_ROWS);
+    private final List<BlockEntry> blocks = new ArrayList<>();
+    private final List<TransactionIdEntry> transactionIds = new ArrayList<>();
+    private final long[] statusCounts = new long[TransactionHistory.TransactionStatus.values().length];
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private long position;
+    private long rows;
+
+    ArchiveSegmentWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES).putInt(MAGIC).putInt(VERSION).flip();
+        write(header);
+    }
+
+    void append(TransactionHistory transaction) throws IOException {
+        block.add(transaction);
+        statusCounts[transaction.getStatus().ordinal()]++;
+        rows++;
+        if (block.size() == BLOCK_ROWS) {
+            flushBlock();
+        }
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    long getPosition() {
+        return position;
+    }
+
+    /**
+     * Writes the indexes and trailer, forces the file to disk and closes it.
+     */
+    void finish() throws IOException {
+        try {
+            if (!block.isEmpty()) {
+                flushBlock();
+            }
+
+            long blockIndexOffset = position;
+            ByteArrayOutputStream blockIndex = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(blockIndex);
+            out.writeInt(blocks.size());
+            for (BlockEntry entry : blocks) {
+                out.writeLong(entry.offset());
+                writeString(out, entry.firstAccountNumber());
+                writeString(out, entry.lastAccountNumber());
+            }
+            write(ByteBuffer.wrap(blockIndex.toByteArray()));
+
+            long transactionIdIndexOffset = position;
+            write(ByteBuffer.wrap(encodeTransactionIdIndex()));
+
+            long statusCountsOffset = position;
+            ByteBuffer counts = ByteBuffer.allocate(Integer.BYTES + statusCounts.length * Long.BYTES);
+            counts.putInt(statusCounts.length);
+            for (long count : statusCounts) {
+                counts.putLong(count);
+            }
+            write(counts.flip());
+
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES)
+                .putLong(blockIndexOffset).putLong(transactionIdIndexOffset).putLong(statusCountsOffset).putInt(MAGIC);
+            write(trailer.flip());
+            channel.force(true);
+        } finally {
+            close();
+        }
+    }
+
+    void close() throws IOException {
+        deflater.end();
+        channel.close();
+    }
+
+    private void flushBlock() throws IOException {
+        int blockNumber = blocks.size();
+        blocks.add(new BlockEntry(position, block.get(0).getAccountNumber(), block.get(block.size() - 1).getAccountNumber()));
+
+        ByteArrayOutputStream[] columns = new ByteArrayOutputStream[COLUMN_COUNT];
+        DataOutputStream[] out = new DataOutputStream[COLUMN_COUNT];
+        for (int c = 0; c < COLUMN_COUNT; c++) {
+            columns[c] = new ByteArrayOutputStream();
+            out[c] = new DataOutputStream(columns[c]);
+        }
+
+        for (int row = 0; row < block.size(); row++) {
+            TransactionHistory transaction = block.get(row);
+            writeString(out[COLUMN_ACCOUNT_NUMBER], transaction.getAccountNumber());
+            writeString(out[COLUMN_TRANSACTION_ID], transaction.getTransactionId());
+            out[COLUMN_ID].writeLong(transaction.getId());
+            out[COLUMN_AMOUNT].writeLong(transaction.getAmount().setScale(AMOUNT_SCALE).unscaledValue().longValueExact());
+            writeString(out[COLUMN_NARRATION], transaction.getNarration());
+            out[COLUMN_STATUS].writeByte(transaction.getStatus().ordinal());
+            out[COLUMN_CREATED_AT].writeLong(toEpochMicros(transaction.getCreatedAt()));
+            transactionIds.add(new TransactionIdEntry(transaction.getTransactionId(), blockNumber, row));
+        }
+
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        DataOutputStream blockOut = new DataOutputStream(encoded);
+        blockOut.writeInt(block.size());
+        blockOut.writeInt(COLUMN_COUNT);
+        byte[] buffer = new byte[64 * 1024];
+        for (ByteArrayOutputStream column : columns) {
+            byte[] raw = column.toByteArray();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 2 + 64);
+            deflater.reset();
+            deflater.setInput(raw);
+            deflater.finish();
+            while (!deflater.finished()) {
+                compressed.write(buffer, 0, deflater.deflate(buffer));
+            }
+            blockOut.writeInt(raw.length);
+            blockOut.writeInt(compressed.size());
+            compressed.writeTo(blockOut);
+        }
+        write(ByteBuffer.wrap(encoded.toByteArray()));
+        block.clear();
+    }
+
+    private byte[] encodeTransactionIdIndex() throws IOException {
+        transactionIds.sort(Comparator.comparing(TransactionIdEntry::transactionId));
+
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        DataOutputStream entriesOut = new DataOutputStream(entries);
+        int[] offsets = new int[transactionIds.size()];
+        for (int i = 0; i < transactionIds.size(); i++) {
+            TransactionIdEntry entry = transactionIds.get(i);
+            offsets[i] = entries.size();
+            writeString(entriesOut, entry.transactionId());
+            entriesOut.writeInt(entry.block());
+            entriesOut.writeShort(entry.row());
+        }
+
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(index);
+        out.writeInt(offsets.length);
+        for (int offset : offsets) {
+            out.writeInt(offset);
+        }
+        entries.writeTo(out);
+        return index.toByteArray();
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static long toEpochMicros(LocalDateTime value) {
+        return value.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + value.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+            (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private record BlockEntry(long offset, String firstAccountNumber, String lastAccountNumber) {
+    }
+
+    private record TransactionIdEntry(String transactionId, int block, int row) {
+    }
+}
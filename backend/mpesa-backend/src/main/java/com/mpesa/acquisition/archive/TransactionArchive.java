@@ -0,0 +1,229 @@
+package com.mpesa.acquisition.archive;
+
+import com.mpesa.acquisition.entity.TransactionHistory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Cold tier for transaction history: read-only segment files holding the rows of monthly
+ * partitions that TransactionArchiver moved out of Postgres.
+ *
+ * Segments are named archive-YYYY-MM-NNNN.seg after the month they hold. Lookups use the
+ * month to skip segments, then each segment's own indexes. Archived rows are immutable.
+ */
+@Component
+@ConditionalOnProperty(name = "mpesa.archive.enabled", havingValue = "true")
+public class TransactionArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionArchive.class);
+
+    static final String TEMP_SUFFIX = ".tmp";
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("archive-(\\d{4})-(\\d{2})-(\\d{4})\\.seg");
+
+    private final Path directory;
+
+    // Newest month first
+    private final ConcurrentSkipListMap<YearMonth, List<ArchiveSegment>> segments =
+        new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+
+    public TransactionArchive(@Value("${mpesa.archive.directory:./data/archive}") String directory) throws IOException {
+        this.directory = Paths.get(directory);
+        Files.createDirectories(this.directory);
+        load();
+    }
+
+    public Optional<TransactionHistory> findByTransactionId(String transactionId, LocalDateTime from, LocalDateTime to) {
+        for (List<ArchiveSegment> month : segments.subMap(YearMonth.from(to), true, YearMonth.from(from), true).values()) {
+            for (ArchiveSegment segment : month) {
+                Optional<TransactionHistory> transaction = segment.findByTransactionId(transactionId);
+                if (transaction.isPresent()) {
+                    return transaction;
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Up to limit archived rows for the account, newest first, starting after the given
+     * (created_at, id) position or from the newest row when it is null.
+     */
+    public List<TransactionHistory> findPage(String accountNumber, LocalDateTime beforeCreatedAt, long beforeId, int limit) {
+        NavigableMap<YearMonth, List<ArchiveSegment>> months = beforeCreatedAt == null
+            ? segments : segments.tailMap(YearMonth.from(beforeCreatedAt), true);
+
+        List<TransactionHistory> page = new ArrayList<>();
+        for (List<ArchiveSegment> month : months.values()) {
+            // A month's segments were written one after another in (account_number,
+            // created_at DESC, id DESC) order, so an account's rows continue newest first
+            // from one segment into the next
+            for (ArchiveSegment segment : month) {
+                page.addAll(segment.findPage(accountNumber, beforeCreatedAt, beforeId, limit - page.size()));
+                if (page.size() == limit) {
+                    return page;
+                }
+            }
+        }
+        return page;
+    }
+
+    public long countByStatus(TransactionHistory.TransactionStatus status) {
+        long count = 0;
+        for (List<ArchiveSegment> month : segments.values()) {
+            for (ArchiveSegment segment : month) {
+                count += segment.getCount(status);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * SUCCESS and REVERSED counts and totals per account over every archived row, as
+     * stored in tbl_account_summary.
+     */
+    public Map<String, AccountTotals> accountTotals() {
+        Map<String, AccountTotals> totals = new HashMap<>();
+        for (List<ArchiveSegment> month : segments.values()) {
+            for (ArchiveSegment segment : month) {
+                segment.forEachSummaryRow(row -> {
+                    if (row.getStatus() != TransactionHistory.TransactionStatus.FAILED) {
+                        totals.computeIfAbsent(row.getAccountNumber(), accountNumber -> new AccountTotals()).add(row);
+                    }
+                });
+            }
+        }
+        return totals;
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    boolean contains(YearMonth month) {
+        return segments.containsKey(month);
+    }
+
+    List<YearMonth> getMonths() {
+        return new ArrayList<>(segments.keySet());
+    }
+
+    static Path segmentPath(Path directory, YearMonth month, int sequence) {
+        return directory.resolve(String.format("archive-%04d-%02d-%04d.seg", month.getYear(), month.getMonthValue(), sequence));
+    }
+
+    /**
+     * Make finished segment files for a month visible to lookups.
+     */
+    void register(YearMonth month, List<Path> paths) throws IOException {
+        List<ArchiveSegment> opened = new ArrayList<>();
+        for (Path path : paths) {
+            opened.add(new ArchiveSegment(path, month));
+        }
+        segments.put(month, List.copyOf(opened));
+    }
+
+    /**
+     * Stop serving a month and delete its segment files, including unfinished ones.
+     */
+    void delete(YearMonth month) throws IOException {
+        segments.remove(month);
+        String prefix = String.format("archive-%04d-%02d-", month.getYear(), month.getMonthValue());
+        try (Stream<Path> listing = Files.list(directory)) {
+            for (Path path : listing.filter(path -> path.getFileName().toString().startsWith(prefix)).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.sorted().toList();
+        }
+
+        Map<YearMonth, List<Path>> byMonth = new ConcurrentSkipListMap<>();
+        for (Path path : files) {
+            String name = path.getFileName().toString();
+            if (name.endsWith(TEMP_SUFFIX)) {
+                // Left behind by an interrupted archive run
+                Files.deleteIfExists(path);
+                continue;
+            }
+
+            Matcher matcher = SEGMENT_NAME.matcher(name);
+            if (matcher.matches()) {
+                YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+                byMonth.computeIfAbsent(month, m -> new ArrayList<>()).add(path);
+            }
+        }
+
+        for (Map.Entry<YearMonth, List<Path>> month : byMonth.entrySet()) {
+            register(month.getKey(), month.getValue());
+        }
+        log.info("Transaction archive loaded {} months from {}", byMonth.size(), directory);
+    }
+
+    public static final class AccountTotals {
+        private long successfulCount;
+        private BigDecimal successfulTotal = BigDecimal.ZERO;
+        private long reversedCount;
+        private BigDecimal reversedTotal = BigDecimal.ZERO;
+        private LocalDateTime lastTransactionAt;
+
+        void add(TransactionHistory row) {
+            if (row.getStatus() == TransactionHistory.TransactionStatus.SUCCESS) {
+                successfulCount++;
+                successfulTotal = successfulTotal.add(row.getAmount());
+            } else {
+                reversedCount++;
+                reversedTotal = reversedTotal.add(row.getAmount());
+            }
+            if (lastTransactionAt == null || row.getCreatedAt().isAfter(lastTransactionAt)) {
+                lastTransactionAt = row.getCreatedAt();
+            }
+        }
+
+        public long getSuccessfulCount() {
+            return successfulCount;
+        }
+
+        public BigDecimal getSuccessfulTotal() {
+            return successfulTotal;
+        }
+
+        public long getReversedCount() {
+            return reversedCount;
+        }
+
+        public BigDecimal getReversedTotal() {
+            return reversedTotal;
+        }
+
+        public LocalDateTime getLastTransactionAt() {
+            return lastTransactionAt;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.mpesa.acquisition.archive;
+
+import com.mpesa.acquisition.entity.TransactionHistory;
+import com.mpesa.acquisition.repository.TransactionIdRepository;
+import com.mpesa.acquisition.service.TransactionHistoryPartitionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves monthly partitions of tbl_transaction_history that are older than
+ * mpesa.archive.after-months into TransactionArchive segment files.
+ *
+ * Each month is archived in one database transaction: the partition is locked against
+ * writes, its rows are streamed into segment files in (account_number, created_at DESC,
+ * id DESC) order, the files are forced to disk, and the partition is detached and dropped.
+ * The files are deleted again if the transaction does not commit, and a month that still
+ * has a partition at startup had its files written by an interrupted run, so they are
+ * deleted too. The month's tbl_transaction_id rows stay, so IDs remain unique while the
+ * month is archived. Archived months past the partition retention period are deleted,
+ * with those rows.
+ */
+@Component
+@ConditionalOnProperty(name = "mpesa.archive.enabled", havingValue = "true")
+public class TransactionArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionArchiver.class);
+
+    // Segments are memory-mapped whole, so stay well below the 2GB mapping limit
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+    private static final int FETCH_SIZE = 10_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+
+    @Autowired
+    private TransactionHistoryPartitionManager partitionManager;
+
+    @Autowired
+    private TransactionIdRepository transactionIdRepository;
+
+    private final TransactionTemplate transactionTemplate;
+    private final int afterMonths;
+    private final int retentionMonths;
+    private final long segmentMaxRows;
+    private final long lockTimeoutMs;
+
+    public TransactionArchiver(PlatformTransactionManager transactionManager,
+                               @Value("${mpesa.archive.after-months:6}") int afterMonths,
+                               @Value("${mpesa.archive.segment-max-rows:1000000}") long segmentMaxRows,
+                               @Value("${mpesa.archive.lock-timeout-ms:5000}") long lockTimeoutMs,
+                               @Value("${mpesa.transaction-history.partitions.retention-months:24}") int retentionMonths) {
+        if (afterMonths < 1) {
+            throw new IllegalArgumentException("Only months at least one month old can be archived, got " + afterMonths);
+        }
+        if (retentionMonths > 0 && afterMonths >= retentionMonths) {
+            throw new IllegalArgumentException("mpesa.archive.after-months (" + afterMonths +
+                ") must be less than the partition retention (" + retentionMonths + ") or partitions are dropped unarchived");
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.afterMonths = afterMonths;
+        this.segmentMaxRows = segmentMaxRows;
+        this.lockTimeoutMs = lockTimeoutMs;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @PostConstruct
+    public void discardUnfinishedMonths() throws IOException {
+        for (TransactionHistoryPartitionManager.Partition partition : partitionManager.listPartitions()) {
+            if (transactionArchive.contains(partition.month())) {
+                log.warn("Discarding archive segments for {}: the partition {} was not dropped", partition.month(), partition.name());
+                transactionArchive.delete(partition.month());
+            }
+        }
+    }
+
+    @Scheduled(cron = "${mpesa.archive.cron:0 45 3 * * *}")
+    public void maintain() {
+        archivePartitionsBefore(YearMonth.now().minusMonths(afterMonths));
+        if (retentionMonths > 0) {
+            deleteExpiredMonths(YearMonth.now().minusMonths(retentionMonths));
+        }
+    }
+
+    /**
+     * Archive every partition for a month before the given one. Stops at the first failure.
+     */
+    public List<YearMonth> archivePartitionsBefore(YearMonth oldestKept) {
+        List<YearMonth> archived = new ArrayList<>();
+        for (TransactionHistoryPartitionManager.Partition partition : partitionManager.listPartitions()) {
+            // A pending detach belongs to the partition manager's retention
+            if (!partition.month().isBefore(oldestKept) || partition.detachPending()) {
+                continue;
+            }
+            archive(partition);
+            archived.add(partition.month());
+        }
+        return archived;
+    }
+
+    public List<YearMonth> deleteExpiredMonths(YearMonth oldestRetained) {
+        List<YearMonth> deleted = new ArrayList<>();
+        for (YearMonth month : transactionArchive.getMonths()) {
+            if (month.isBefore(oldestRetained)) {
+                try {
+                    transactionArchive.delete(month);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                transactionIdRepository.deleteCreatedIn(month);
+                deleted.add(month);
+                log.info("Deleted expired transaction archive month {}", month);
+            }
+        }
+        return deleted;
+    }
+
+    private void archive(TransactionHistoryPartitionManager.Partition partition) {
+        YearMonth month = partition.month();
+        try {
+            transactionArchive.delete(month);
+            long rows = transactionTemplate.execute(status -> {
+                // Writes to this month wait until it is archived
+                jdbcTemplate.execute("LOCK TABLE " + partition.name() + " IN SHARE MODE");
+                SegmentSink sink = new SegmentSink(month);
+                try {
+                    jdbcTemplate.query(connection -> {
+                        PreparedStatement statement = connection.prepareStatement(
+                            "SELECT id, transaction_id, account_number, amount, narration, status, created_at FROM " +
+                            partition.name() + " ORDER BY account_number, created_at DESC, id DESC");
+                        statement.setFetchSize(FETCH_SIZE);
+                        return statement;
+                    }, resultSet -> {
+                        TransactionHistory transaction = new TransactionHistory();
+                        transaction.setId(resultSet.getLong("id"));
+                        transaction.setTransactionId(resultSet.getString("transaction_id"));
+                        transaction.setAccountNumber(resultSet.getString("account_number"));
+                        transaction.setAmount(resultSet.getBigDecimal("amount"));
+                        transaction.setNarration(resultSet.getString("narration"));
+                        transaction.setStatus(TransactionHistory.TransactionStatus.valueOf(resultSet.getString("status")));
+                        transaction.setCreatedAt(resultSet.getTimestamp("created_at").toLocalDateTime());
+                        sink.append(transaction);
+                    });
+                    List<Path> segments = sink.finish();
+
+                    // Bounded, so the archiver gives up instead of queueing every history query behind it
+                    jdbcTemplate.execute("SET LOCAL lock_timeout = '" + lockTimeoutMs + "ms'");
+                    jdbcTemplate.execute("ALTER TABLE " + TransactionHistoryPartitionManager.TABLE + " DETACH PARTITION " + partition.name());
+                    jdbcTemplate.execute("DROP TABLE " + partition.name());
+
+                    // Served before the commit so no lookup sees the month in neither place
+                    transactionArchive.register(month, segments);
+                    return sink.rows;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    sink.abort();
+                }
+            });
+            log.info("Archived {} transactions from partition {}", rows, partition.name());
+        } catch (IOException | RuntimeException e) {
+            try {
+                transactionArchive.delete(month);
+            } catch (IOException ex) {
+                e.addSuppressed(ex);
+            }
+            throw new IllegalStateException("Could not archive partition " + partition.name(), e);
+        }
+    }
+
+    /**
+     * Writes rows into temporary segment files for one month, rolling over to a new file
+     * at the row or size limit, and renames them once they are complete.
+     */
+    private final class SegmentSink {
+        private final YearMonth month;
+        private final List<Path> finished = new ArrayList<>();
+        private ArchiveSegmentWriter writer;
+        private Path writing;
+        private long rows;
+
+        SegmentSink(YearMonth month) {
+            this.month = month;
+        }
+
+        void append(TransactionHistory transaction) {
+            try {
+                if (writer != null && (writer.getRows() >= segmentMaxRows || writer.getPosition() >= MAX_SEGMENT_BYTES)) {
+                    finishSegment();
+                }
+                if (writer == null) {
+                    Path path = TransactionArchive.segmentPath(transactionArchive.getDirectory(), month, finished.size());
+                    writing = path.resolveSibling(path.getFileName() + TransactionArchive.TEMP_SUFFIX);
+                    writer = new ArchiveSegmentWriter(writing);
+                }
+                writer.append(transaction);
+                rows++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        List<Path> finish() throws IOException {
+            if (writer != null) {
+                finishSegment();
+            }
+            // Make the renames durable too
+            try (FileChannel directory = FileChannel.open(transactionArchive.getDirectory(), StandardOpenOption.READ)) {
+                directory.force(true);
+            }
+            return finished;
+        }
+
+        void abort() {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    log.warn("Could not close archive segment {}", writing, e);
+                }
+                writer = null;
+            }
+        }
+
+        private void finishSegment() throws IOException {
+            writer.finish();
+            writer = null;
+            Path path = TransactionArchive.segmentPath(transactionArchive.getDirectory(), month, finished.size());
+            Files.move(writing, path, StandardCopyOption.ATOMIC_MOVE);
+            finished.add(path);
+        }
+    }
+}
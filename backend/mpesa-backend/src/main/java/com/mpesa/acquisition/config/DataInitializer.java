@@ -1,14 +1,18 @@
 package com.mpesa.acquisition.config;
 
+import com.mpesa.acquisition.datasource.SqlStats;
 import com.mpesa.acquisition.entity.Bank;
 import com.mpesa.acquisition.entity.Branch;
 import com.mpesa.acquisition.repository.BankRepository;
 import com.mpesa.acquisition.repository.BranchRepository;
+import com.mpesa.acquisition.service.ReferenceDataCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -21,10 +25,22 @@ public class DataInitializer implements ApplicationRunner {
     @Autowired
     private BranchRepository branchRepository;
 
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Value("${mpesa.reference-data.present:false}")
+    private boolean referenceDataPresent;
+
     @Override
     public void run(ApplicationArguments args) throws Exception {
+        // Set when the database is known to be seeded; ReferenceDataCache then loads on first use
+        if (referenceDataPresent) {
+            return;
+        }
+
         // Check if data already exists
         if (bankRepository.count() > 0) {
+            referenceDataCache.reload();
             return; // Data already initialized
         }
 
@@ -42,26 +58,30 @@ public class DataInitializer implements ApplicationRunner {
             "Family Bank"
         );
 
-        for (String bankName : bankNames) {
-            Bank bank = new Bank(bankName);
-            bank = bankRepository.save(bank);
+        List<String> branchNames = Arrays.asList(
+            "Main Branch",
+            "Westlands Branch",
+            "Mombasa Branch",
+            "Kisumu Branch",
+            "Nakuru Branch",
+            "Eldoret Branch"
+        );
 
-            // Add sample branches for each bank
-            List<String> branchNames = Arrays.asList(
-                "Main Branch",
-                "Westlands Branch",
-                "Mombasa Branch",
-                "Kisumu Branch",
-                "Nakuru Branch",
-                "Eldoret Branch"
-            );
+        // Sequence ids are assigned on persist, so each saveAll is flushed as batched inserts
+        SqlStats stats = SqlStats.capture(() -> {
+            List<Bank> banks = bankRepository.saveAll(bankNames.stream().map(Bank::new).toList());
 
-            for (String branchName : branchNames) {
-                Branch branch = new Branch(branchName, bank.getId());
-                branchRepository.save(branch);
+            // Add sample branches for each bank
+            List<Branch> branches = new ArrayList<>();
+            for (Bank bank : banks) {
+                for (String branchName : branchNames) {
+                    branches.add(new Branch(branchName, bank.getId()));
+                }
             }
-        }
+            branchRepository.saveAll(branches);
+        });
 
-        System.out.println("Database initialized with sample banks and branches");
+        referenceDataCache.reload();
+        System.out.println("Database initialized with sample banks and branches (" + stats + ")");
     }
 }
@@ -0,0 +1,55 @@
+package com.mpesa.acquisition.config;
+
+import com.mpesa.acquisition.datasource.BulkheadDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application DataSource in a BulkheadDataSource. Enabled by default together
+ * with virtual threads (spring.threads.virtual.enabled).
+ *
+ * The bulkhead wraps the connection pool itself, before any other DataSource wrapper, so
+ * with a read replica it only limits primary connections.
+ */
+@Configuration
+@ConditionalOnProperty(name = "mpesa.db.bulkhead.enabled", havingValue = "true")
+public class DatabaseBulkheadConfig {
+
+    // Declared with its own type: Spring reads Ordered from the return type before creating it
+    @Bean
+    public static BulkheadPostProcessor databaseBulkheadPostProcessor(Environment environment) {
+        int maxConcurrent = environment.getProperty("mpesa.db.bulkhead.max-concurrent", Integer.class, 10);
+        long acquireTimeoutMillis = environment.getProperty("mpesa.db.bulkhead.acquire-timeout-ms", Long.class, 5000L);
+        return new BulkheadPostProcessor(maxConcurrent, acquireTimeoutMillis);
+    }
+
+    static final class BulkheadPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final int maxConcurrent;
+        private final long acquireTimeoutMillis;
+
+        private BulkheadPostProcessor(int maxConcurrent, long acquireTimeoutMillis) {
+            this.maxConcurrent = maxConcurrent;
+            this.acquireTimeoutMillis = acquireTimeoutMillis;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof BulkheadDataSource)) {
+                return new BulkheadDataSource(dataSource, maxConcurrent, acquireTimeoutMillis);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.mpesa.acquisition.config;
+
+import com.mpesa.acquisition.datasource.ReadConsistency;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Lets the read-only transactions of GET requests read from the replica. Clients that must
+ * see their own writes, for example the history right after a payment, send
+ * X-Consistency: strong to read from the primary.
+ */
+@Component
+@ConditionalOnProperty(name = "mpesa.replica.enabled", havingValue = "true")
+public class ReadConsistencyFilter extends OncePerRequestFilter {
+
+    public static final String CONSISTENCY_HEADER = "X-Consistency";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+        if (!read || "strong".equalsIgnoreCase(request.getHeader(CONSISTENCY_HEADER))) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ReadConsistency scope = ReadConsistency.allowReplica();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            scope.close();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.mpesa.acquisition.config;
+
+import com.mpesa.acquisition.datasource.ReadReplica;
+import com.mpesa.acquisition.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Sends dashboard reads to a read replica with its own connection pool, so they do not
+ * take primary connections from payment writes.
+ *
+ * The application DataSource is wrapped in a ReplicaRoutingDataSource behind a
+ * LazyConnectionDataSourceProxy. The bulkhead wraps the primary pool before this, so
+ * replica reads do not take payment permits; the replica is bounded by its own pool.
+ * SqlStats wraps the result and sees statements on both servers.
+ */
+@Configuration
+@ConditionalOnProperty(name = "mpesa.replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    public static ReadReplica readReplica(Environment environment) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(environment.getRequiredProperty("mpesa.replica.url"));
+        dataSource.setUsername(environment.getProperty("mpesa.replica.username",
+            environment.getProperty("spring.datasource.username")));
+        dataSource.setPassword(environment.getProperty("mpesa.replica.password",
+            environment.getProperty("spring.datasource.password")));
+        dataSource.setMaximumPoolSize(environment.getProperty("mpesa.replica.maximum-pool-size", Integer.class, 10));
+        dataSource.setConnectionTimeout(environment.getProperty("mpesa.replica.connection-timeout-ms", Long.class, 1000L));
+        dataSource.setReadOnly(true);
+        // Start even when the replica is down; the lag guard keeps reads on the primary meanwhile
+        dataSource.setInitializationFailTimeout(-1);
+
+        HikariDataSource primaryProbe = new HikariDataSource();
+        primaryProbe.setPoolName("replica-lag-probe");
+        primaryProbe.setJdbcUrl(environment.getRequiredProperty("spring.datasource.url"));
+        primaryProbe.setUsername(environment.getProperty("spring.datasource.username"));
+        primaryProbe.setPassword(environment.getProperty("spring.datasource.password"));
+        primaryProbe.setMaximumPoolSize(1);
+        primaryProbe.setMinimumIdle(1);
+        primaryProbe.setConnectionTimeout(dataSource.getConnectionTimeout());
+        primaryProbe.setInitializationFailTimeout(-1);
+
+        return new ReadReplica(dataSource, primaryProbe, environment.getProperty("mpesa.replica.max-lag-ms", Long.class, 5000L),
+            environment.getProperty("mpesa.replica.require-standby", Boolean.class, true));
+    }
+
+    // Declared with its own type: Spring reads Ordered from the return type before creating it
+    @Bean
+    public static RoutingPostProcessor replicaRoutingPostProcessor(ObjectProvider<ReadReplica> readReplica) {
+        return new RoutingPostProcessor(readReplica);
+    }
+
+    // Replica pool gauges as hikaricp.connections.* with pool=replica, and the measured lag
+    @Bean
+    public MeterBinder readReplicaMetrics(ReadReplica readReplica) {
+        return registry -> {
+            readReplica.getDataSource().setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            Gauge.builder("mpesa.replica.lag", readReplica, ReadReplica::getLagMillis)
+                .baseUnit("milliseconds")
+                .description("Replay lag of the read replica at the last check, -1 before the first")
+                .register(registry);
+        };
+    }
+
+    // Runs after the bulkhead post-processor and before the unordered SqlStats one
+    static final class RoutingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<ReadReplica> readReplica;
+
+        private RoutingPostProcessor(ObjectProvider<ReadReplica> readReplica) {
+            this.readReplica = readReplica;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof LazyConnectionDataSourceProxy)) {
+                // Resolved here rather than injected, so ReadReplica gets the @Scheduled post-processing
+                return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(dataSource, readReplica.getObject()));
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.mpesa.acquisition.config;
+
+import com.mpesa.acquisition.datasource.SqlStatsDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application DataSource in a SqlStatsDataSource so SqlStatsFilter can report
+ * the statements each request issues.
+ */
+@Configuration
+@ConditionalOnProperty(name = "mpesa.sql-stats.enabled", havingValue = "true")
+public class SqlStatsConfig {
+
+    @Bean
+    public static BeanPostProcessor sqlStatsPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof SqlStatsDataSource)) {
+                    return new SqlStatsDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
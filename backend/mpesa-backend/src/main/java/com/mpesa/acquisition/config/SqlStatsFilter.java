@@ -0,0 +1,58 @@
+package com.mpesa.acquisition.config;
+
+import com.mpesa.acquisition.datasource.SqlStats;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens a SqlStats scope for each HTTP request. Slow requests are logged with their
+ * statement counts, and so are requests that run the same statement many times, which
+ * usually means an N+1 query.
+ */
+@Component
+@ConditionalOnProperty(name = "mpesa.sql-stats.enabled", havingValue = "true")
+public class SqlStatsFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatsFilter.class);
+
+    private final long slowRequestNanos;
+    private final int repeatedStatementThreshold;
+
+    public SqlStatsFilter(@Value("${mpesa.sql-stats.slow-request-ms:500}") long slowRequestMillis,
+                          @Value("${mpesa.sql-stats.repeated-statement-threshold:10}") int repeatedStatementThreshold) {
+        this.slowRequestNanos = TimeUnit.MILLISECONDS.toNanos(slowRequestMillis);
+        this.repeatedStatementThreshold = repeatedStatementThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        SqlStats stats = SqlStats.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            stats.stop();
+            long elapsed = System.nanoTime() - start;
+            if (elapsed >= slowRequestNanos) {
+                log.warn("Slow request {} {} took {}ms: {}", request.getMethod(), request.getRequestURI(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), stats);
+            }
+            if (stats.getMostRepeatedCount() >= repeatedStatementThreshold) {
+                log.warn("Possible N+1 query in {} {}: statement executed {} times: {}", request.getMethod(),
+                    request.getRequestURI(), stats.getMostRepeatedCount(), stats.getMostRepeatedSql());
+            }
+        }
+    }
+}
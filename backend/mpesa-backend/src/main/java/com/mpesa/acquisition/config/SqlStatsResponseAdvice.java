@@ -0,0 +1,39 @@
+package com.mpesa.acquisition.config;
+
+import com.mpesa.acquisition.datasource.SqlStats;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds the request's SQL statement counts as an X-SQL-Stats header, for development.
+ * The header is written just before the body, once the controller has finished its
+ * database work.
+ */
+@ControllerAdvice
+@ConditionalOnExpression("${mpesa.sql-stats.enabled:false} and ${mpesa.sql-stats.response-header:false}")
+public class SqlStatsResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String HEADER = "X-SQL-Stats";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlStats stats = SqlStats.current();
+        if (stats != null) {
+            response.getHeaders().set(HEADER, stats.toString());
+        }
+        return body;
+    }
+}
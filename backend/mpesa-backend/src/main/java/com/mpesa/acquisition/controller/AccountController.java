@@ -0,0 +1,51 @@
+package com.mpesa.acquisition.controller;
+
+import com.mpesa.acquisition.dto.AccountSummaryResponse;
+import com.mpesa.acquisition.dto.ErrorResponse;
+import com.mpesa.acquisition.entity.AccountSummary;
+import com.mpesa.acquisition.entity.Application;
+import com.mpesa.acquisition.repository.AccountSummaryRepository;
+import com.mpesa.acquisition.service.AccountEligibilityCache;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
+@Timed("mpesa.controller")
+public class AccountController {
+
+    @Autowired
+    private AccountSummaryRepository accountSummaryRepository;
+
+    @Autowired
+    private AccountEligibilityCache accountEligibilityCache;
+
+    /**
+     * GET /api/accounts/{accountNumber}/summary - Get the account's transaction totals
+     */
+    @GetMapping("/accounts/{accountNumber}/summary")
+    public ResponseEntity<?> getAccountSummary(@PathVariable String accountNumber) {
+        try {
+            Optional<AccountSummary> stored = accountSummaryRepository.findById(accountNumber);
+            if (stored.isEmpty()) {
+                // No transactions yet; tell an unknown account apart from an idle one
+                Application.ApplicationStatus applicationStatus = accountEligibilityCache.getStatus(accountNumber);
+                if (applicationStatus == null) {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ErrorResponse.failed("Account number not found"));
+                }
+            }
+
+            AccountSummary summary = stored.orElseGet(() -> new AccountSummary(accountNumber));
+            return ResponseEntity.ok(AccountSummaryResponse.success(summary));
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ErrorResponse.failed("Failed to fetch account summary"));
+        }
+    }
+}
@@ -1,100 +1,104 @@
 package com.mpesa.acquisition.controller;
 
+import com.mpesa.acquisition.datasource.ReadConsistency;
+import com.mpesa.acquisition.dto.ApplicationListResponse;
+import com.mpesa.acquisition.dto.ApplicationResponse;
 import com.mpesa.acquisition.dto.ApplicationSubmissionRequest;
+import com.mpesa.acquisition.dto.ApplicationSubmissionResponse;
+import com.mpesa.acquisition.dto.ApplicationView;
+import com.mpesa.acquisition.dto.ErrorResponse;
 import com.mpesa.acquisition.entity.Application;
-import com.mpesa.acquisition.entity.Bank;
-import com.mpesa.acquisition.entity.Branch;
 import com.mpesa.acquisition.repository.ApplicationRepository;
-import com.mpesa.acquisition.repository.BankRepository;
-import com.mpesa.acquisition.repository.BranchRepository;
+import com.mpesa.acquisition.repository.ApplicationSubmissionWriter;
+import com.mpesa.acquisition.service.AccountEligibilityCache;
+import com.mpesa.acquisition.service.ApplicationSearchIndex;
+import com.mpesa.acquisition.service.StatusCounters;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.validation.Valid;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
+@Timed("mpesa.controller")
 public class ApplicationController {
 
     @Autowired
     private ApplicationRepository applicationRepository;
 
     @Autowired
-    private BankRepository bankRepository;
+    private ApplicationSubmissionWriter applicationSubmissionWriter;
 
     @Autowired
-    private BranchRepository branchRepository;
+    private AccountEligibilityCache accountEligibilityCache;
 
-    /**
-     * POST /api/applications/submit - Submit the application
-     */
-    @PostMapping("/applications/submit")
-    public ResponseEntity<Map<String, Object>> submitApplication(@Valid @RequestBody ApplicationSubmissionRequest request) {
-        Map<String, Object> response = new HashMap<>();
+    @Autowired
+    private StatusCounters statusCounters;
 
-        try {
-            // Validate bank exists
-            Optional<Bank> bank = bankRepository.findById(request.getBankId());
-            if (bank.isEmpty()) {
-                response.put("status", "FAILED");
-                response.put("message", "Invalid bank selected");
-                return ResponseEntity.badRequest().body(response);
-            }
+    @Autowired
+    private ApplicationSearchIndex applicationSearchIndex;
 
-            // Validate branch exists and belongs to the bank
-            Optional<Branch> branch = branchRepository.findById(request.getBranchId());
-            if (branch.isEmpty() || !branch.get().getBankId().equals(request.getBankId())) {
-                response.put("status", "FAILED");
-                response.put("message", "Invalid branch selected for the specified bank");
-                return ResponseEntity.badRequest().body(response);
-            }
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
-            // Prevent duplicating account numbers
-            if (applicationRepository.existsByAccountNumber(request.getAccountNumber())) {
-                response.put("status", "FAILED");
-                response.put("message", "Account number already exists");
-                return ResponseEntity.badRequest().body(response);
-            }
+    @Autowired
+    private ObjectMapper objectMapper;
 
-            // Create new application
-            Application application = new Application();
-            application.setBankName(request.getBankName());
-            application.setBranchName(request.getBranchName());
-            application.setAccountName(request.getAccountName());
-            application.setAccountNumber(request.getAccountNumber());
-            application.setProofOfBankAccount(request.getProofOfBankAccount());
+    @PersistenceContext
+    private EntityManager entityManager;
 
-            // Set status based on request or default to SUBMITTED for submit endpoint
-            if (request.getStatus() != null && "DRAFT".equalsIgnoreCase(request.getStatus())) {
-                application.setStatus(Application.ApplicationStatus.DRAFT);
-            } else {
-                // Default to SUBMITTED for submit endpoint
-                application.setStatus(Application.ApplicationStatus.SUBMITTED);
-            }
+    @Value("${mpesa.search.default-limit:20}")
+    private int defaultSearchLimit;
 
-            // Save application
-            Application savedApplication = applicationRepository.save(application);
+    @Value("${mpesa.search.max-limit:100}")
+    private int maxSearchLimit;
 
-            // Prepare response
-            response.put("status", "SUCCESS");
-            response.put("message", "Application " + savedApplication.getStatus().getDisplayName().toLowerCase() + " successfully");
-            response.put("applicationId", savedApplication.getId());
-            response.put("accountNumber", savedApplication.getAccountNumber());
-            response.put("applicationStatus", savedApplication.getStatus().getDisplayName());
-            response.put("submissionDate", savedApplication.getCreatedAt());
+    private static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
 
-            return ResponseEntity.ok(response);
+    private static final byte[] CSV_HEADER = ("id,bankName,branchName,accountName,accountNumber," +
+        "proofOfBankAccount,status,createdAt,updatedAt\n").getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * POST /api/applications/submit - Submit the application
+     */
+    @PostMapping("/applications/submit")
+    public ResponseEntity<?> submitApplication(@Valid @RequestBody ApplicationSubmissionRequest request) {
+        try {
+            // Set status based on request or default to SUBMITTED for submit endpoint
+            Application.ApplicationStatus status = request.getStatus() != null && "DRAFT".equalsIgnoreCase(request.getStatus())
+                ? Application.ApplicationStatus.DRAFT
+                : Application.ApplicationStatus.SUBMITTED;
+
+            return createApplication(request, status,
+                "Application " + status.getDisplayName().toLowerCase() + " successfully");
 
         } catch (Exception e) {
-            response.put("status", "FAILED");
-            response.put("message", "Application submission failed: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ErrorResponse.failed("Application submission failed: " + e.getMessage()));
         }
     }
 
@@ -102,61 +106,14 @@ public class ApplicationController {
      * POST /api/applications/draft - Save application as draft
      */
     @PostMapping("/applications/draft")
-    public ResponseEntity<Map<String, Object>> saveDraftApplication(@Valid @RequestBody ApplicationSubmissionRequest request) {
-        Map<String, Object> response = new HashMap<>();
-
+    public ResponseEntity<?> saveDraftApplication(@Valid @RequestBody ApplicationSubmissionRequest request) {
         try {
-            // Validate bank exists
-            Optional<Bank> bank = bankRepository.findById(request.getBankId());
-            if (bank.isEmpty()) {
-                response.put("status", "FAILED");
-                response.put("message", "Invalid bank selected");
-                return ResponseEntity.badRequest().body(response);
-            }
-
-            // Validate branch exists and belongs to the bank
-            Optional<Branch> branch = branchRepository.findById(request.getBranchId());
-            if (branch.isEmpty() || !branch.get().getBankId().equals(request.getBankId())) {
-                response.put("status", "FAILED");
-                response.put("message", "Invalid branch selected for the specified bank");
-                return ResponseEntity.badRequest().body(response);
-            }
-
-            // Prevent duplicating account numbers
-            if (applicationRepository.existsByAccountNumber(request.getAccountNumber())) {
-                response.put("status", "FAILED");
-                response.put("message", "Account number already exists");
-                return ResponseEntity.badRequest().body(response);
-            }
-
-            // Create new application
-            Application application = new Application();
-            application.setBankName(request.getBankName());
-            application.setBranchName(request.getBranchName());
-            application.setAccountName(request.getAccountName());
-            application.setAccountNumber(request.getAccountNumber());
-            application.setProofOfBankAccount(request.getProofOfBankAccount());
-
             // Always set as DRAFT for this endpoint
-            application.setStatus(Application.ApplicationStatus.DRAFT);
-
-            // Save application
-            Application savedApplication = applicationRepository.save(application);
-
-            // Prepare response
-            response.put("status", "SUCCESS");
-            response.put("message", "Application saved as draft successfully");
-            response.put("applicationId", savedApplication.getId());
-            response.put("accountNumber", savedApplication.getAccountNumber());
-            response.put("applicationStatus", savedApplication.getStatus().getDisplayName());
-            response.put("submissionDate", savedApplication.getCreatedAt());
-
-            return ResponseEntity.ok(response);
+            return createApplication(request, Application.ApplicationStatus.DRAFT, "Application saved as draft successfully");
 
         } catch (Exception e) {
-            response.put("status", "FAILED");
-            response.put("message", "Application draft save failed: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ErrorResponse.failed("Application draft save failed: " + e.getMessage()));
         }
     }
 
@@ -164,26 +121,18 @@ public class ApplicationController {
      * GET /api/applications/{id} - Get application by ID
      */
     @GetMapping("/applications/{id}")
-    public ResponseEntity<Map<String, Object>> getApplicationById(@PathVariable Long id) {
-        Map<String, Object> response = new HashMap<>();
-
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getApplicationById(@PathVariable Long id) {
         try {
             Optional<Application> application = applicationRepository.findById(id);
             if (application.isEmpty()) {
-                response.put("status", "FAILED");
-                response.put("message", "Application not found");
                 return ResponseEntity.notFound().build();
             }
 
-            response.put("status", "SUCCESS");
-            response.put("application", application.get());
-
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(ApplicationResponse.success(application.get()));
 
         } catch (Exception e) {
-            response.put("status", "FAILED");
-            response.put("message", "Failed to retrieve application");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ErrorResponse.failed("Failed to retrieve application"));
         }
     }
 
@@ -191,48 +140,167 @@ public class ApplicationController {
      * GET /api/applications - Get all applications
      */
     @GetMapping("/applications")
-    public ResponseEntity<Map<String, Object>> getAllApplications() {
-        Map<String, Object> response = new HashMap<>();
-
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getAllApplications() {
         try {
-            var applications = applicationRepository.findAll();
-            response.put("status", "SUCCESS");
-            response.put("applications", applications);
-            response.put("count", applications.size());
-
-            return ResponseEntity.ok(response);
+            List<ApplicationView> applications = applicationRepository.findAll().stream().map(ApplicationView::from).toList();
+            return ResponseEntity.ok(ApplicationListResponse.success(applications));
 
         } catch (Exception e) {
-            response.put("status", "FAILED");
-            response.put("message", "Failed to retrieve applications");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ErrorResponse.failed("Failed to retrieve applications"));
         }
     }
 
+    /**
+     * GET /api/applications/search?accountNumber={prefix}&name={text}&limit={n} - Type-ahead search by
+     * account number prefix and account name substring, served from the in-memory index
+     */
+    @GetMapping("/applications/search")
+    public ResponseEntity<?> searchApplications(@RequestParam(required = false) String accountNumber,
+                                                @RequestParam(required = false) String name,
+                                                @RequestParam(required = false) Integer limit) {
+        boolean hasAccountNumber = accountNumber != null && !accountNumber.isBlank();
+        boolean hasName = name != null && !name.isBlank();
+        if (!hasAccountNumber && !hasName) {
+            return ResponseEntity.badRequest().body(ErrorResponse.failed("Provide accountNumber or name to search"));
+        }
+
+        int maxResults = limit == null ? defaultSearchLimit : Math.max(1, Math.min(limit, maxSearchLimit));
+        List<ApplicationView> applications = applicationSearchIndex.search(
+            hasAccountNumber ? accountNumber.trim() : null, hasName ? name : null, maxResults);
+        return ResponseEntity.ok(ApplicationListResponse.success(applications));
+    }
+
+    /**
+     * GET /api/applications/export - Stream all applications as NDJSON, or CSV when the client accepts text/csv
+     */
+    @GetMapping("/applications/export")
+    public ResponseEntity<StreamingResponseBody> exportApplications(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean csv = false;
+        if (accept != null) {
+            for (MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+                if (TEXT_CSV.equalsTypeAndSubtype(mediaType)) {
+                    csv = true;
+                    break;
+                }
+            }
+        }
+
+        boolean writeCsv = csv;
+        ObjectWriter jsonWriter = objectMapper.writerFor(Application.class);
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        // Runs on the async request thread, so the cursor needs its own transaction, and
+        // the request's permission to read from the replica is carried over explicitly
+        boolean replicaAllowed = ReadConsistency.isReplicaAllowed();
+        StreamingResponseBody body = out -> ReadConsistency.run(replicaAllowed, () -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Application> applications = applicationRepository.streamAllOrderById()) {
+                if (writeCsv) {
+                    out.write(CSV_HEADER);
+                }
+
+                Iterator<Application> iterator = applications.iterator();
+                while (iterator.hasNext()) {
+                    Application application = iterator.next();
+                    if (writeCsv) {
+                        writeCsvRow(out, application);
+                    } else {
+                        out.write(jsonWriter.writeValueAsBytes(application));
+                        out.write('\n');
+                    }
+                    // Keep the persistence context empty so heap use does not grow with the table
+                    entityManager.detach(application);
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+
+        return ResponseEntity.ok()
+            .contentType(writeCsv ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+            .body(body);
+    }
+
     /**
      * GET /api/applications/account/{accountNumber} - Get application by account number
      */
     @GetMapping("/applications/account/{accountNumber}")
-    public ResponseEntity<Map<String, Object>> getApplicationByAccountNumber(@PathVariable String accountNumber) {
-        Map<String, Object> response = new HashMap<>();
-
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getApplicationByAccountNumber(@PathVariable String accountNumber) {
         try {
             Optional<Application> application = applicationRepository.findByAccountNumber(accountNumber);
             if (application.isEmpty()) {
-                response.put("status", "FAILED");
-                response.put("message", "Application not found for account number: " + accountNumber);
                 return ResponseEntity.notFound().build();
             }
 
-            response.put("status", "SUCCESS");
-            response.put("application", application.get());
-
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(ApplicationResponse.success(application.get()));
 
         } catch (Exception e) {
-            response.put("status", "FAILED");
-            response.put("message", "Failed to retrieve application");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ErrorResponse.failed("Failed to retrieve application"));
+        }
+    }
+
+    // Validates the bank and branch pairing, checks the account number and inserts in one statement
+    private ResponseEntity<?> createApplication(ApplicationSubmissionRequest request, Application.ApplicationStatus status,
+                                                String successMessage) {
+        Application application = new Application();
+        application.setBankName(request.getBankName());
+        application.setBranchName(request.getBranchName());
+        application.setAccountName(request.getAccountName());
+        application.setAccountNumber(request.getAccountNumber());
+        application.setProofOfBankAccount(request.getProofOfBankAccount());
+        application.setStatus(status);
+
+        ApplicationSubmissionWriter.Outcome outcome =
+            applicationSubmissionWriter.insert(application, request.getBankId(), request.getBranchId());
+        if (outcome == ApplicationSubmissionWriter.Outcome.INVALID_BANK) {
+            return ResponseEntity.badRequest().body(ErrorResponse.failed("Invalid bank selected"));
+        }
+        if (outcome == ApplicationSubmissionWriter.Outcome.INVALID_BRANCH) {
+            return ResponseEntity.badRequest().body(ErrorResponse.failed("Invalid branch selected for the specified bank"));
+        }
+        if (outcome == ApplicationSubmissionWriter.Outcome.DUPLICATE_ACCOUNT_NUMBER) {
+            return ResponseEntity.badRequest().body(ErrorResponse.failed("Account number already exists"));
+        }
+
+        accountEligibilityCache.update(application.getAccountNumber(), application.getStatus());
+        statusCounters.recordApplication(application.getStatus());
+        applicationSearchIndex.add(ApplicationView.from(application));
+
+        return ResponseEntity.ok(ApplicationSubmissionResponse.success(successMessage, application));
+    }
+
+    private static void writeCsvRow(OutputStream out, Application application) throws IOException {
+        List<Object> values = Arrays.asList(
+            application.getId(),
+            application.getBankName(),
+            application.getBranchName(),
+            application.getAccountName(),
+            application.getAccountNumber(),
+            application.getProofOfBankAccount(),
+            application.getStatus(),
+            application.getCreatedAt(),
+            application.getUpdatedAt()
+        );
+
+        StringBuilder row = new StringBuilder(128);
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                row.append(',');
+            }
+            Object value = values.get(i);
+            if (value != null) {
+                String text = value.toString();
+                if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                    row.append('"').append(text.replace("\"", "\"\"")).append('"');
+                } else {
+                    row.append(text);
+                }
+            }
         }
+        row.append('\n');
+        out.write(row.toString().getBytes(StandardCharsets.UTF_8));
     }
 }
@@ -1,20 +1,28 @@
 package com.mpesa.acquisition.controller;
 
+import com.mpesa.acquisition.dto.ErrorResponse;
+import com.mpesa.acquisition.dto.ReferenceDataReloadResponse;
 import com.mpesa.acquisition.entity.Bank;
 import com.mpesa.acquisition.entity.Branch;
 import com.mpesa.acquisition.repository.BankRepository;
 import com.mpesa.acquisition.repository.BranchRepository;
+import com.mpesa.acquisition.service.ReferenceDataCache;
+import com.mpesa.acquisition.service.ReferenceDataSnapshot;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
+@Timed("mpesa.controller")
 public class BankController {
 
     @Autowired
@@ -23,38 +31,60 @@ public class BankController {
     @Autowired
     private BranchRepository branchRepository;
 
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
     /**
-     * GET /api/banks - Fetch all bank names from tbl_bank
+     * GET /api/banks - Fetch all bank names from the reference data snapshot
      */
     @GetMapping("/banks")
-    public ResponseEntity<List<Bank>> getAllBanks() {
+    public ResponseEntity<byte[]> getAllBanks(WebRequest webRequest) {
         try {
-            List<Bank> banks = bankRepository.findAllOrderByValue();
-            return ResponseEntity.ok(banks);
+            ReferenceDataSnapshot snapshot = referenceDataCache.getSnapshot();
+            if (webRequest.checkNotModified(snapshot.getBanksEtag())) {
+                return null;
+            }
+            return jsonBody(snapshot.getBanksJson(), snapshot.getBanksEtag());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
     /**
-     * GET /api/branches?bank_id={id} - Fetch all branches for a specific bank
+     * GET /api/branches?bank_id={id} - Fetch all branches for a specific bank from the reference data snapshot
      */
     @GetMapping("/branches")
-    public ResponseEntity<List<Branch>> getBranchesByBankId(@RequestParam("bank_id") Long bankId) {
+    public ResponseEntity<byte[]> getBranchesByBankId(@RequestParam("bank_id") Long bankId, WebRequest webRequest) {
         try {
             // Verify bank exists
-            Optional<Bank> bank = bankRepository.findById(bankId);
-            if (bank.isEmpty()) {
+            ReferenceDataSnapshot snapshot = referenceDataCache.getSnapshot();
+            int bankIndex = snapshot.indexOfBank(bankId);
+            if (bankIndex < 0) {
                 return ResponseEntity.notFound().build();
             }
 
-            List<Branch> branches = branchRepository.findByBankIdOrderByValue(bankId);
-            return ResponseEntity.ok(branches);
+            if (webRequest.checkNotModified(snapshot.getBranchesEtag(bankIndex))) {
+                return null;
+            }
+            return jsonBody(snapshot.getBranchesJson(bankIndex), snapshot.getBranchesEtag(bankIndex));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * POST /api/admin/reference-data/reload - Reload banks and branches into the snapshot
+     */
+    @PostMapping("/admin/reference-data/reload")
+    public ResponseEntity<?> reloadReferenceData() {
+        try {
+            ReferenceDataSnapshot snapshot = referenceDataCache.reload();
+            return ResponseEntity.ok(ReferenceDataReloadResponse.success(snapshot.getBankCount(), snapshot.getBranchCount()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ErrorResponse.failed("Failed to reload reference data"));
+        }
+    }
+
     /**
      * GET /api/banks/{id} - Get bank by ID
      */
@@ -88,4 +118,12 @@ public class BankController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    private ResponseEntity<byte[]> jsonBody(byte[] body, String etag) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache())
+            .body(body);
+    }
 }
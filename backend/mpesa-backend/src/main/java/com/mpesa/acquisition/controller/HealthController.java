@@ -1,5 +1,13 @@
 package com.mpesa.acquisition.controller;
 
+import com.mpesa.acquisition.datasource.ReadReplica;
+import com.mpesa.acquisition.journal.FailedTransactionSpool;
+import com.mpesa.acquisition.service.AccountEligibilityCache;
+import com.mpesa.acquisition.service.ApplicationSearchIndex;
+import com.mpesa.acquisition.service.StatusCounters;
+import com.mpesa.acquisition.service.TransactionCircuitBreaker;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -9,8 +17,28 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
+@Timed("mpesa.controller")
 public class HealthController {
 
+    @Autowired
+    private AccountEligibilityCache accountEligibilityCache;
+
+    @Autowired
+    private StatusCounters statusCounters;
+
+    @Autowired
+    private ApplicationSearchIndex applicationSearchIndex;
+
+    @Autowired
+    private TransactionCircuitBreaker transactionCircuitBreaker;
+
+    @Autowired
+    private FailedTransactionSpool failedTransactionSpool;
+
+    // Present only when mpesa.replica.enabled=true
+    @Autowired(required = false)
+    private ReadReplica readReplica;
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> health() {
         Map<String, Object> response = new HashMap<>();
@@ -19,10 +47,58 @@ public class HealthController {
         response.put("timestamp", System.currentTimeMillis());
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * GET /api/health/eligibility-cache - Account eligibility cache counters
+     */
+    @GetMapping("/health/eligibility-cache")
+    public ResponseEntity<Map<String, Object>> eligibilityCache() {
+        return ResponseEntity.ok(accountEligibilityCache.getStats());
+    }
+
+    /**
+     * GET /api/health/search-index - Application search index size
+     */
+    @GetMapping("/health/search-index")
+    public ResponseEntity<Map<String, Object>> searchIndex() {
+        return ResponseEntity.ok(applicationSearchIndex.getStats());
+    }
+
+    /**
+     * GET /api/health/circuit-breaker - Transaction circuit breaker state and failure spool counters
+     */
+    @GetMapping("/health/circuit-breaker")
+    public ResponseEntity<Map<String, Object>> circuitBreaker() {
+        Map<String, Object> response = transactionCircuitBreaker.getStats();
+        response.put("failureSpool", failedTransactionSpool.getStats());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * GET /api/health/replica - Read replica lag and how many reads it served
+     */
+    @GetMapping("/health/replica")
+    public ResponseEntity<Map<String, Object>> replica() {
+        if (readReplica == null) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("enabled", false);
+            return ResponseEntity.ok(response);
+        }
+        return ResponseEntity.ok(readReplica.getStats());
+    }
+
+    /**
+     * GET /api/stats - Application and transaction counts by status, served from memory
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(statusCounters.getStats());
+    }
 }
 
 @RestController
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
+@Timed("mpesa.controller")
 class RootController {
 
     @GetMapping("/")
@@ -1,57 +1,140 @@
 package com.mpesa.acquisition.controller;
 
+import com.mpesa.acquisition.dto.BatchItemResult;
+import com.mpesa.acquisition.dto.BatchTransactionRequest;
+import com.mpesa.acquisition.dto.BatchTransactionResponse;
+import com.mpesa.acquisition.dto.ErrorResponse;
+import com.mpesa.acquisition.dto.ReversalResponse;
+import com.mpesa.acquisition.dto.TransactionHistoryItem;
+import com.mpesa.acquisition.dto.TransactionHistoryResponse;
 import com.mpesa.acquisition.dto.TransactionRequest;
+import com.mpesa.acquisition.dto.TransactionResponse;
 import com.mpesa.acquisition.dto.ReverseTransactionRequest;
 import com.mpesa.acquisition.entity.Application;
 import com.mpesa.acquisition.entity.TransactionHistory;
-import com.mpesa.acquisition.repository.ApplicationRepository;
-import com.mpesa.acquisition.repository.TransactionHistoryRepository;
+import com.mpesa.acquisition.journal.FailedTransactionSpool;
+import com.mpesa.acquisition.journal.TransactionJournal;
+import com.mpesa.acquisition.repository.TransactionHistoryBatchWriter;
+import com.mpesa.acquisition.service.AccountEligibilityCache;
+import com.mpesa.acquisition.service.CircuitBreakerOpenException;
+import com.mpesa.acquisition.service.IdempotencyService;
+import com.mpesa.acquisition.service.StatusCounters;
+import com.mpesa.acquisition.service.TransactionCircuitBreaker;
+import com.mpesa.acquisition.service.TransactionHistoryCursor;
+import com.mpesa.acquisition.service.TransactionIdGenerator;
+import com.mpesa.acquisition.service.TransactionLedgerService;
+import com.mpesa.acquisition.service.TransactionMetrics;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 
-import java.util.HashMap;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
+@Timed("mpesa.controller")
 public class TransactionController {
 
+    private static final Logger log = LoggerFactory.getLogger(TransactionController.class);
+
+    @Autowired
+    private TransactionHistoryBatchWriter transactionHistoryBatchWriter;
+
+    @Autowired
+    private TransactionLedgerService transactionLedgerService;
+
+    @Autowired
+    private AccountEligibilityCache accountEligibilityCache;
+
+    @Autowired
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @Autowired
-    private TransactionHistoryRepository transactionHistoryRepository;
+    private TransactionMetrics transactionMetrics;
 
     @Autowired
-    private ApplicationRepository applicationRepository;
+    private StatusCounters statusCounters;
+
+    @Autowired
+    private TransactionCircuitBreaker transactionCircuitBreaker;
+
+    @Autowired
+    private FailedTransactionSpool failedTransactionSpool;
+
+    // Present only when mpesa.journal.enabled=true
+    @Autowired(required = false)
+    private TransactionJournal transactionJournal;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${mpesa.transaction.history.default-page-size:50}")
+    private int defaultHistoryPageSize;
+
+    @Value("${mpesa.transaction.history.max-page-size:500}")
+    private int maxHistoryPageSize;
 
     /**
      * POST /api/transaction - Accept a transaction payload
      */
     @PostMapping("/transaction")
-    public ResponseEntity<Map<String, Object>> processTransaction(@Valid @RequestBody TransactionRequest request) {
-        Map<String, Object> response = new HashMap<>();
+    public ResponseEntity<?> processTransaction(@Valid @RequestBody TransactionRequest request,
+                                                @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return executeTransaction(request, null);
+        }
+
+        if (idempotencyKey.length() > IdempotencyService.MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(ErrorResponse.failed(
+                "Idempotency-Key must be at most " + IdempotencyService.MAX_KEY_LENGTH + " characters"));
+        }
 
+        try {
+            // A repeated key returns the stored response without processing the payment again
+            return idempotencyService.execute(idempotencyKey, transactionIdGenerator.nextId(),
+                claim -> executeTransaction(request, claim));
+        } catch (Exception e) {
+            return ResponseEntity.status(failureStatus(e)).body(ErrorResponse.failed("Transaction processing failed"));
+        }
+    }
+
+    /**
+     * With an idempotency claim, the payment uses the claim's transaction ID and stores its
+     * response in the same database transaction.
+     */
+    private ResponseEntity<?> executeTransaction(TransactionRequest request, IdempotencyService.Claim claim) {
         try {
             // Validate account number exists in tbl_application with status SUBMITTED
-            Optional<Application> application = applicationRepository.findByAccountNumber(request.getAccountNumber());
-            if (application.isEmpty()) {
-                response.put("status", "FAILED");
-                response.put("message", "Account number not found");
-                return ResponseEntity.badRequest().body(response);
+            Application.ApplicationStatus applicationStatus = accountEligibilityCache.getStatus(request.getAccountNumber());
+            if (applicationStatus == null) {
+                return ResponseEntity.badRequest().body(ErrorResponse.failed("Account number not found"));
             }
 
-            if (application.get().getStatus() != Application.ApplicationStatus.SUBMITTED) {
-                response.put("status", "FAILED");
-                response.put("message", "Account not approved for transactions");
-                return ResponseEntity.badRequest().body(response);
+            if (applicationStatus != Application.ApplicationStatus.SUBMITTED) {
+                return ResponseEntity.badRequest().body(ErrorResponse.failed("Account not approved for transactions"));
             }
 
             // Generate unique transaction ID
-            String transactionId = "TX" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8);
+            String transactionId = claim != null ? claim.getTransactionId() : transactionIdGenerator.nextId();
 
             // Create transaction history entry
             TransactionHistory transaction = new TransactionHistory();
@@ -61,114 +144,241 @@ public class TransactionController {
             transaction.setNarration(request.getNarration());
             transaction.setStatus(TransactionHistory.TransactionStatus.SUCCESS);
 
-            // Save transaction
-            TransactionHistory savedTransaction = transactionHistoryRepository.save(transaction);
-
-            // Prepare response
-            response.put("status", "SUCCESS");
-            response.put("transactionId", savedTransaction.getTransactionId());
-            response.put("accountNumber", savedTransaction.getAccountNumber());
-            response.put("amount", savedTransaction.getAmount());
-            response.put("narration", savedTransaction.getNarration());
-            response.put("timestamp", savedTransaction.getCreatedAt());
+            // Save transaction and account summary, or acknowledge it once it is durable in the local journal
+            TransactionHistory savedTransaction;
+            if (transactionJournal != null) {
+                transaction.setCreatedAt(LocalDateTime.now());
+                transactionJournal.appendDurably(transaction);
+                savedTransaction = transaction;
+            } else {
+                savedTransaction = transactionCircuitBreaker.call(() -> transactionLedgerService.record(transaction, saved -> {
+                    if (claim != null) {
+                        claim.complete(ResponseEntity.ok(TransactionResponse.success(saved)));
+                    }
+                }));
+                statusCounters.recordTransactions(TransactionHistory.TransactionStatus.SUCCESS, 1);
+            }
+            transactionMetrics.recordTransaction(TransactionHistory.TransactionStatus.SUCCESS);
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(TransactionResponse.success(savedTransaction));
 
         } catch (Exception e) {
             // Create failed transaction entry
-            try {
-                String transactionId = "TX" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8);
-                TransactionHistory failedTransaction = new TransactionHistory();
-                failedTransaction.setTransactionId(transactionId);
-                failedTransaction.setAccountNumber(request.getAccountNumber());
-                failedTransaction.setAmount(request.getAmount());
-                failedTransaction.setNarration(request.getNarration());
-                failedTransaction.setStatus(TransactionHistory.TransactionStatus.FAILED);
-                transactionHistoryRepository.save(failedTransaction);
-            } catch (Exception ex) {
-                // Log exception
-            }
+            TransactionHistory failedTransaction = new TransactionHistory();
+            failedTransaction.setTransactionId(transactionIdGenerator.nextId());
+            failedTransaction.setAccountNumber(request.getAccountNumber());
+            failedTransaction.setAmount(request.getAmount());
+            failedTransaction.setNarration(request.getNarration());
+            failedTransaction.setStatus(TransactionHistory.TransactionStatus.FAILED);
+            failedTransaction.setCreatedAt(LocalDateTime.now());
+            recordFailed(List.of(failedTransaction), e);
 
-            response.put("status", "FAILED");
-            response.put("message", "Transaction processing failed");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(failureStatus(e)).body(ErrorResponse.failed("Transaction processing failed"));
         }
     }
 
     /**
-     * POST /api/reverse - Reverse a transaction
+     * POST /api/transactions/batch - Accept a batch of transaction payloads
      */
-    @PostMapping("/reverse")
-    public ResponseEntity<Map<String, Object>> reverseTransaction(@Valid @RequestBody ReverseTransactionRequest request) {
-        Map<String, Object> response = new HashMap<>();
+    @PostMapping("/transactions/batch")
+    public ResponseEntity<?> processTransactionBatch(@Valid @RequestBody BatchTransactionRequest request) {
+        List<TransactionRequest> items = request.getTransactions();
+        List<BatchItemResult> results = new ArrayList<>(Collections.nCopies(items.size(), null));
+        List<TransactionHistory> accepted = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+
+        // Validate each item on its own so one bad entry does not reject the whole batch
+        Set<String> accountNumbers = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            TransactionRequest item = items.get(i);
+            if (item == null) {
+                results.set(i, BatchItemResult.failed(i, null, "Transaction payload is required"));
+                continue;
+            }
+
+            Set<ConstraintViolation<TransactionRequest>> violations = validator.validate(item);
+            if (!violations.isEmpty()) {
+                results.set(i, BatchItemResult.failed(i, item.getAccountNumber(), violations.iterator().next().getMessage()));
+                continue;
+            }
+
+            accountNumbers.add(item.getAccountNumber());
+        }
 
         try {
-            // Validate if transaction exists and is reversible
-            Optional<TransactionHistory> transaction = transactionHistoryRepository.findByTransactionId(request.getTransactionId());
-            if (transaction.isEmpty()) {
-                response.put("status", "FAILED");
-                response.put("message", "Transaction not found");
-                return ResponseEntity.badRequest().body(response);
+            // Validate all account numbers, loading cache misses from tbl_application in one query
+            Map<String, Application.ApplicationStatus> statuses = accountEligibilityCache.getStatuses(accountNumbers);
+
+            LocalDateTime now = LocalDateTime.now();
+            for (int i = 0; i < items.size(); i++) {
+                if (results.get(i) != null) {
+                    continue;
+                }
+
+                TransactionRequest item = items.get(i);
+                Application.ApplicationStatus status = statuses.get(item.getAccountNumber());
+                if (status == null) {
+                    results.set(i, BatchItemResult.failed(i, item.getAccountNumber(), "Account number not found"));
+                    continue;
+                }
+
+                if (status != Application.ApplicationStatus.SUBMITTED) {
+                    results.set(i, BatchItemResult.failed(i, item.getAccountNumber(), "Account not approved for transactions"));
+                    continue;
+                }
+
+                TransactionHistory transaction = new TransactionHistory();
+                transaction.setTransactionId(transactionIdGenerator.nextId());
+                transaction.setAccountNumber(item.getAccountNumber());
+                transaction.setAmount(item.getAmount());
+                transaction.setNarration(item.getNarration());
+                transaction.setStatus(TransactionHistory.TransactionStatus.SUCCESS);
+                transaction.setCreatedAt(now);
+                accepted.add(transaction);
+                acceptedIndexes.add(i);
             }
 
-            TransactionHistory existingTransaction = transaction.get();
+            // Persist all accepted transactions in one flush
+            transactionCircuitBreaker.run(() -> transactionHistoryBatchWriter.insertAll(accepted));
+            transactionMetrics.recordTransactions(TransactionHistory.TransactionStatus.SUCCESS, accepted.size());
+            statusCounters.recordTransactions(TransactionHistory.TransactionStatus.SUCCESS, accepted.size());
 
-            // Check if transaction is already reversed
-            if (existingTransaction.getStatus() == TransactionHistory.TransactionStatus.REVERSED) {
-                response.put("status", "FAILED");
-                response.put("message", "Transaction already reversed");
-                return ResponseEntity.badRequest().body(response);
+            for (int j = 0; j < accepted.size(); j++) {
+                int index = acceptedIndexes.get(j);
+                results.set(index, BatchItemResult.success(index, accepted.get(j)));
             }
 
-            // Check if transaction can be reversed (only SUCCESS transactions can be reversed)
-            if (existingTransaction.getStatus() != TransactionHistory.TransactionStatus.SUCCESS) {
-                response.put("status", "FAILED");
-                response.put("message", "Only successful transactions can be reversed");
-                return ResponseEntity.badRequest().body(response);
+            return ResponseEntity.ok(BatchTransactionResponse.success(results, accepted.size()));
+
+        } catch (Exception e) {
+            // Record the accepted transactions as failed
+            for (TransactionHistory transaction : accepted) {
+                transaction.setTransactionId(transactionIdGenerator.nextId());
+                transaction.setStatus(TransactionHistory.TransactionStatus.FAILED);
             }
+            recordFailed(accepted, e);
 
-            // Update transaction status to REVERSED
-            existingTransaction.setStatus(TransactionHistory.TransactionStatus.REVERSED);
-            existingTransaction.setNarration(existingTransaction.getNarration() + " - REVERSED: " + request.getReason());
+            return ResponseEntity.status(failureStatus(e)).body(ErrorResponse.failed("Transaction batch processing failed"));
+        }
+    }
 
-            TransactionHistory updatedTransaction = transactionHistoryRepository.save(existingTransaction);
+    /**
+     * POST /api/reverse - Reverse a transaction
+     */
+    @PostMapping("/reverse")
+    public ResponseEntity<?> reverseTransaction(@Valid @RequestBody ReverseTransactionRequest request) {
+        try {
+            // Reverse only if the transaction is still SUCCESS, in a single statement
+            Optional<TransactionHistory> transaction = transactionCircuitBreaker.call(() -> transactionLedgerService.reverse(
+                request.getTransactionId(), request.getReason()));
+            if (transaction.isEmpty()) {
+                // Nothing was updated, find out why
+                Optional<TransactionHistory.TransactionStatus> status =
+                    transactionCircuitBreaker.call(() -> transactionLedgerService.findStatus(request.getTransactionId()));
+
+                String message;
+                if (status.isEmpty()) {
+                    message = "Transaction not found";
+                } else if (status.get() == TransactionHistory.TransactionStatus.REVERSED) {
+                    message = "Transaction already reversed";
+                } else if (status.get() == TransactionHistory.TransactionStatus.SUCCESS
+                           && transactionLedgerService.isArchived(request.getTransactionId())) {
+                    message = "Transaction is archived and can no longer be reversed";
+                } else {
+                    message = "Only successful transactions can be reversed";
+                }
+                return ResponseEntity.badRequest().body(ErrorResponse.failed(message));
+            }
 
-            // Prepare response
-            response.put("status", "SUCCESS");
-            response.put("transactionId", updatedTransaction.getTransactionId());
-            response.put("accountNumber", updatedTransaction.getAccountNumber());
-            response.put("amount", updatedTransaction.getAmount());
-            response.put("reversalReason", request.getReason());
-            response.put("timestamp", updatedTransaction.getCreatedAt());
+            TransactionHistory updatedTransaction = transaction.get();
+            transactionMetrics.recordTransaction(TransactionHistory.TransactionStatus.REVERSED);
+            statusCounters.recordReversal();
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(ReversalResponse.success(updatedTransaction, request.getReason()));
 
         } catch (Exception e) {
-            response.put("status", "FAILED");
-            response.put("message", "Transaction reversal failed");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(failureStatus(e)).body(ErrorResponse.failed("Transaction reversal failed"));
         }
     }
 
     /**
-     * GET /api/transactions/{accountNumber} - Get transaction history for an account
+     * GET /api/transactions/{accountNumber} - Get one page of transaction history for an account, newest first
      */
     @GetMapping("/transactions/{accountNumber}")
-    public ResponseEntity<Map<String, Object>> getTransactionHistory(@PathVariable String accountNumber) {
-        Map<String, Object> response = new HashMap<>();
-
+    public ResponseEntity<?> getTransactionHistory(@PathVariable String accountNumber,
+                                                   @RequestParam(value = "limit", required = false) Integer limit,
+                                                   @RequestParam(value = "cursor", required = false) String cursor) {
         try {
-            var transactions = transactionHistoryRepository.findByAccountNumberOrderByCreatedAtDesc(accountNumber);
-            response.put("status", "SUCCESS");
-            response.put("accountNumber", accountNumber);
-            response.put("transactions", transactions);
+            int pageSize = limit == null ? defaultHistoryPageSize : Math.max(1, Math.min(limit, maxHistoryPageSize));
+
+            TransactionHistoryCursor decoded;
+            try {
+                decoded = cursor == null || cursor.isBlank() ? null : TransactionHistoryCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(ErrorResponse.failed("Invalid cursor"));
+            }
+            TransactionHistoryCursor after = decoded;
 
-            return ResponseEntity.ok(response);
+            // Fetch one extra row to find out whether another page exists
+            List<TransactionHistory> transactions = transactionCircuitBreaker.call(
+                () -> transactionLedgerService.findPage(accountNumber, after, pageSize + 1));
+
+            int rows = Math.min(transactions.size(), pageSize);
+            List<TransactionHistoryItem> items = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                items.add(TransactionHistoryItem.from(transactions.get(i)));
+            }
+
+            String nextCursor = null;
+            if (transactions.size() > pageSize) {
+                TransactionHistory last = transactions.get(pageSize - 1);
+                nextCursor = new TransactionHistoryCursor(last.getCreatedAt(), last.getId()).encode();
+            }
+
+            return ResponseEntity.ok(TransactionHistoryResponse.success(accountNumber, items, nextCursor));
 
         } catch (Exception e) {
-            response.put("status", "FAILED");
-            response.put("message", "Failed to retrieve transaction history");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(failureStatus(e)).body(ErrorResponse.failed("Failed to retrieve transaction history"));
         }
     }
+
+    /**
+     * Write FAILED transactions to the history, or to the local spool when the database is
+     * failing, so recording the failure does not add load to it.
+     */
+    private void recordFailed(List<TransactionHistory> failed, Exception cause) {
+        if (failed.isEmpty()) {
+            return;
+        }
+        transactionMetrics.recordTransactions(TransactionHistory.TransactionStatus.FAILED, failed.size());
+
+        boolean databaseFailing = cause instanceof CircuitBreakerOpenException
+            || TransactionCircuitBreaker.isDatabaseFailure(cause)
+            || transactionCircuitBreaker.getState() != TransactionCircuitBreaker.State.CLOSED;
+        if (!databaseFailing) {
+            try {
+                transactionCircuitBreaker.run(() -> transactionHistoryBatchWriter.insertAll(failed));
+                statusCounters.recordTransactions(TransactionHistory.TransactionStatus.FAILED, failed.size());
+                return;
+            } catch (Exception e) {
+                log.warn("Could not record {} failed transactions in the database, spooling them", failed.size(), e);
+            }
+        }
+
+        try {
+            if (!failedTransactionSpool.append(failed)) {
+                transactionMetrics.recordFailureRecordingError();
+                log.error("Failure spool is full, dropped {} failed transactions for account {}",
+                    failed.size(), failed.get(0).getAccountNumber());
+            }
+        } catch (Exception e) {
+            transactionMetrics.recordFailureRecordingError();
+            log.error("Could not spool {} failed transactions for account {}", failed.size(), failed.get(0).getAccountNumber(), e);
+        }
+    }
+
+    // Tell clients to back off while the circuit breaker is open
+    private static HttpStatus failureStatus(Exception e) {
+        return e instanceof CircuitBreakerOpenException ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.INTERNAL_SERVER_ERROR;
+    }
 }
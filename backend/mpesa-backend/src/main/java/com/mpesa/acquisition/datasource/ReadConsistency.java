@@ -0,0 +1,58 @@
+package com.mpesa.acquisition.datasource;
+
+/**
+ * Whether reads on the current thread may be served by the read replica.
+ *
+ * ReplicaRoutingDataSource only sends a read-only transaction to the replica inside an
+ * allowReplica() scope. ReadConsistencyFilter opens one for GET requests that do not ask
+ * for X-Consistency: strong; everything else, including startup and scheduled jobs, reads
+ * from the primary.
+ */
+public final class ReadConsistency {
+
+    private static final ThreadLocal<Boolean> REPLICA_ALLOWED = new ThreadLocal<>();
+
+    private final Boolean previous;
+
+    private ReadConsistency(Boolean previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * Opens a scope on the current thread. Must be closed with close() on the same thread.
+     */
+    public static ReadConsistency allowReplica() {
+        ReadConsistency scope = new ReadConsistency(REPLICA_ALLOWED.get());
+        REPLICA_ALLOWED.set(Boolean.TRUE);
+        return scope;
+    }
+
+    public static boolean isReplicaAllowed() {
+        return REPLICA_ALLOWED.get() == Boolean.TRUE;
+    }
+
+    /**
+     * Runs the action in an allowReplica() scope when replicaAllowed is true, for work handed
+     * to another thread by a request that was allowed to read from the replica.
+     */
+    public static void run(boolean replicaAllowed, Runnable action) {
+        if (!replicaAllowed) {
+            action.run();
+            return;
+        }
+        ReadConsistency scope = allowReplica();
+        try {
+            action.run();
+        } finally {
+            scope.close();
+        }
+    }
+
+    public void close() {
+        if (previous == null) {
+            REPLICA_ALLOWED.remove();
+        } else {
+            REPLICA_ALLOWED.set(previous);
+        }
+    }
+}
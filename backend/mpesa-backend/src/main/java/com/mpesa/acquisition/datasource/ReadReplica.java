@@ -0,0 +1,211 @@
+package com.mpesa.acquisition.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The read replica's connection pool and the lag guard in front of it.
+ *
+ * Every mpesa.replica.lag-check-interval-ms the primary's WAL insert position is sampled
+ * and compared with the position the replica has replayed. The replica holds every change
+ * made up to the newest sample at or below its replay position, so the lag is the age of
+ * that sample. This keeps growing while the replica stands still, whether replay is paused,
+ * the WAL receiver is stalled or the standby has lost its connection to the primary; a
+ * standby without a WAL receiver is not used at all. Between checks the lag can grow by
+ * at most the time since the last check, so the replica is used only while the measured
+ * lag plus that time is within mpesa.replica.max-lag-ms. A failed check or a failed
+ * connection marks the replica unusable until the next successful check.
+ *
+ * With mpesa.replica.require-standby=false, a server that is not in recovery counts as
+ * having no lag, so any second Postgres instance can stand in for a replica when testing
+ * the routing locally.
+ */
+public class ReadReplica implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadReplica.class);
+
+    // Insert rather than write position: with synchronous_commit=off a commit is visible
+    // before its WAL is written
+    private static final String PRIMARY_LSN_SQL = "SELECT (pg_current_wal_insert_lsn() - '0/0')::bigint";
+
+    // Columns of pg_stat_wal_receiver other than pid are null for roles without
+    // pg_read_all_stats, but the row itself only exists while a receiver is running
+    private static final String REPLICA_STATE_SQL =
+        "SELECT pg_is_in_recovery(), (pg_last_wal_replay_lsn() - '0/0')::bigint, " +
+        "EXISTS (SELECT 1 FROM pg_stat_wal_receiver), (SELECT status FROM pg_stat_wal_receiver)";
+
+    // Primary positions older than this many max-lag periods are dropped
+    private static final int SAMPLE_HORIZON = 4;
+
+    private final HikariDataSource dataSource;
+    // One connection to the primary, outside the application pool and its bulkhead, so
+    // the check is not queued behind payment writes
+    private final HikariDataSource primaryProbe;
+    private final long maxLagMillis;
+    private final boolean requireStandby;
+
+    // Primary WAL positions, oldest first; only touched by check()
+    private final ArrayDeque<long[]> primarySamples = new ArrayDeque<>();
+
+    private final LongAdder replicaConnections = new LongAdder();
+    // Replica reads that went to the primary because the replica was lagging or down
+    private final LongAdder primaryFallbacks = new LongAdder();
+
+    // Written by check() and markUnusable(); -1 until the first successful check
+    private volatile long lagMillis = -1;
+    private volatile long checkedAtNanos;
+    private volatile boolean healthy;
+    private volatile String lastError;
+
+    public ReadReplica(HikariDataSource dataSource, HikariDataSource primaryProbe, long maxLagMillis,
+                       boolean requireStandby) {
+        this.dataSource = dataSource;
+        this.primaryProbe = primaryProbe;
+        this.maxLagMillis = maxLagMillis;
+        this.requireStandby = requireStandby;
+    }
+
+    public HikariDataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Whether reads may go to the replica now.
+     */
+    public boolean isUsable() {
+        if (!healthy) {
+            return false;
+        }
+        long sinceCheckMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - checkedAtNanos);
+        return lagMillis + sinceCheckMillis <= maxLagMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${mpesa.replica.lag-check-interval-ms:1000}")
+    public void check() {
+        try {
+            long sampledAt = System.nanoTime();
+            long primaryLsn = queryPrimaryLsn();
+            primarySamples.addLast(new long[] {sampledAt, primaryLsn});
+            long horizon = sampledAt - TimeUnit.MILLISECONDS.toNanos(maxLagMillis * SAMPLE_HORIZON);
+            while (primarySamples.size() > 1 && primarySamples.peekFirst()[0] < horizon) {
+                primarySamples.removeFirst();
+            }
+
+            long lag;
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(REPLICA_STATE_SQL)) {
+                rs.next();
+                boolean inRecovery = rs.getBoolean(1);
+                long replayLsn = rs.getLong(2);
+                boolean receiverRunning = rs.getBoolean(3);
+                String receiverStatus = rs.getString(4);
+
+                if (!inRecovery) {
+                    if (requireStandby) {
+                        markUnusable("replica is not a standby");
+                        return;
+                    }
+                    lag = 0;
+                } else if (!receiverRunning || (receiverStatus != null && !"streaming".equals(receiverStatus))) {
+                    markUnusable("replica is not streaming from the primary");
+                    return;
+                } else {
+                    lag = lagMillis(replayLsn, System.nanoTime());
+                }
+            }
+
+            boolean wasWithinLag = healthy && lagMillis <= maxLagMillis;
+            lagMillis = lag;
+            checkedAtNanos = System.nanoTime();
+            healthy = true;
+            lastError = null;
+            if (!wasWithinLag && lag <= maxLagMillis) {
+                log.info("Read replica is usable, lag {} ms", lag);
+            } else if (wasWithinLag && lag > maxLagMillis) {
+                log.warn("Read replica lag {} ms is over {} ms, reading from the primary", lag, maxLagMillis);
+            }
+        } catch (SQLException | RuntimeException e) {
+            markUnusable(e.getMessage());
+        }
+    }
+
+    // Age of the newest primary sample the replica has replayed. When it has replayed none
+    // of them the lag is unknown, at least the age of the oldest, and counts as too high.
+    private long lagMillis(long replayLsn, long now) {
+        Iterator<long[]> newestFirst = primarySamples.descendingIterator();
+        while (newestFirst.hasNext()) {
+            long[] sample = newestFirst.next();
+            if (sample[1] <= replayLsn) {
+                return TimeUnit.NANOSECONDS.toMillis(now - sample[0]);
+            }
+        }
+        long oldestAgeMillis = TimeUnit.NANOSECONDS.toMillis(now - primarySamples.peekFirst()[0]);
+        return Math.max(oldestAgeMillis, maxLagMillis + 1);
+    }
+
+    private long queryPrimaryLsn() throws SQLException {
+        try (Connection connection = primaryProbe.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(PRIMARY_LSN_SQL)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Stop using the replica until the next successful check.
+     */
+    public void markUnusable(String reason) {
+        if (healthy) {
+            log.warn("Read replica unusable, reading from the primary: {}", reason);
+        }
+        healthy = false;
+        lastError = reason;
+    }
+
+    void recordReplicaConnection() {
+        replicaConnections.increment();
+    }
+
+    void recordPrimaryFallback() {
+        primaryFallbacks.increment();
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", true);
+        stats.put("usable", isUsable());
+        stats.put("lagMs", lagMillis);
+        stats.put("maxLagMs", maxLagMillis);
+        stats.put("lastCheckAgeMs", lagMillis < 0 ? null
+            : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - checkedAtNanos));
+        stats.put("lastError", lastError);
+        stats.put("replicaConnections", replicaConnections.sum());
+        stats.put("primaryFallbacks", primaryFallbacks.sum());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+        primaryProbe.close();
+    }
+}
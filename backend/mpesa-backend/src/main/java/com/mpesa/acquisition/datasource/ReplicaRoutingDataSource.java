@@ -0,0 +1,48 @@
+package com.mpesa.acquisition.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Hands out replica connections for read-only transactions in a ReadConsistency.allowReplica()
+ * scope while the replica is usable, and primary connections for everything else.
+ *
+ * The decision is made when the connection is fetched, so this must sit behind a
+ * LazyConnectionDataSourceProxy: the transaction manager asks for a connection before the
+ * transaction is marked read-only, and the proxy defers that until the first statement.
+ * If the replica refuses the connection, the read falls back to the primary.
+ */
+public class ReplicaRoutingDataSource extends DelegatingDataSource {
+
+    private final ReadReplica replica;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReadReplica replica) {
+        super(primary);
+        this.replica = replica;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || !ReadConsistency.isReplicaAllowed()) {
+            return super.getConnection();
+        }
+        if (!replica.isUsable()) {
+            replica.recordPrimaryFallback();
+            return super.getConnection();
+        }
+
+        try {
+            Connection connection = replica.getDataSource().getConnection();
+            replica.recordReplicaConnection();
+            return connection;
+        } catch (SQLException e) {
+            replica.markUnusable(e.getMessage());
+            replica.recordPrimaryFallback();
+            return super.getConnection();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.mpesa.acquisition.datasource;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JDBC statements, rows and execution time recorded on the current thread by
+ * SqlStatsDataSource between start() and stop().
+ *
+ * Scopes nest: when an inner scope stops, its counts are added to the enclosing one.
+ * SqlStatsFilter opens one scope per HTTP request. Tests can use capture() or
+ * assertStatementsAtMost() around a call to pin down how many round trips it makes.
+ */
+public final class SqlStats {
+
+    // Distinct statements tracked per scope for repeat detection
+    private static final int MAX_TRACKED_SQL = 256;
+
+    private static final ThreadLocal<SqlStats> CURRENT = new ThreadLocal<>();
+
+    private final SqlStats parent;
+    private final Map<String, Integer> executionsBySql = new HashMap<>();
+    private long statements;
+    private long rows;
+    private long dbTimeNanos;
+
+    private SqlStats(SqlStats parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Opens a new scope on the current thread. Must be closed with stop() on the same thread.
+     */
+    public static SqlStats start() {
+        SqlStats stats = new SqlStats(CURRENT.get());
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public void stop() {
+        if (CURRENT.get() != this) {
+            throw new IllegalStateException("SqlStats scopes must be stopped in reverse order on the thread that started them");
+        }
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(parent);
+            parent.merge(this);
+        }
+    }
+
+    /**
+     * The innermost open scope on the current thread, or null.
+     */
+    public static SqlStats current() {
+        return CURRENT.get();
+    }
+
+    public static SqlStats capture(Runnable action) {
+        SqlStats stats = start();
+        try {
+            action.run();
+        } finally {
+            stats.stop();
+        }
+        return stats;
+    }
+
+    /**
+     * Runs the action and throws an AssertionError if it issued more than max statements.
+     */
+    public static SqlStats assertStatementsAtMost(int max, Runnable action) {
+        SqlStats stats = capture(action);
+        if (stats.getStatements() > max) {
+            throw new AssertionError("Expected at most " + max + " SQL statements but " + stats.getStatements()
+                + " were executed (" + stats + ")");
+        }
+        return stats;
+    }
+
+    static void recordExecution(String sql, long elapsedNanos, long affectedRows) {
+        SqlStats stats = CURRENT.get();
+        if (stats == null) {
+            return;
+        }
+        stats.statements++;
+        stats.dbTimeNanos += elapsedNanos;
+        stats.rows += Math.max(affectedRows, 0);
+        if (sql != null && (stats.executionsBySql.size() < MAX_TRACKED_SQL || stats.executionsBySql.containsKey(sql))) {
+            stats.executionsBySql.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    static void recordRow() {
+        SqlStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.rows++;
+        }
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getDbTimeNanos() {
+        return dbTimeNanos;
+    }
+
+    /**
+     * The statement executed most often in this scope, or null if none was executed.
+     */
+    public String getMostRepeatedSql() {
+        return executionsBySql.entrySet().stream()
+            .max(Map.Entry.comparingByValue())
+            .map(Map.Entry::getKey)
+            .orElse(null);
+    }
+
+    public int getMostRepeatedCount() {
+        return executionsBySql.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+    }
+
+    private void merge(SqlStats child) {
+        statements += child.statements;
+        rows += child.rows;
+        dbTimeNanos += child.dbTimeNanos;
+        child.executionsBySql.forEach((sql, count) -> {
+            if (executionsBySql.size() < MAX_TRACKED_SQL || executionsBySql.containsKey(sql)) {
+                executionsBySql.merge(sql, count, Integer::sum);
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "statements=%d, rows=%d, db-time-ms=%.3f",
+            statements, rows, dbTimeNanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
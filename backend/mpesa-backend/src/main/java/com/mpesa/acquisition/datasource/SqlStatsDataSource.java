@@ -0,0 +1,110 @@
+package com.mpesa.acquisition.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Records every JDBC statement execution into the current SqlStats scope.
+ *
+ * Each execute call counts as one statement (a JDBC batch is one round trip). Rows are the
+ * update counts of writes plus the rows read from result sets. Time covers the execute
+ * call only, not fetching later pages of a result set.
+ */
+public class SqlStatsDataSource extends DelegatingDataSource {
+
+    public SqlStatsDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+
+    private static Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+                Object result = invoke(connection, method, args);
+                if (result instanceof Statement statement) {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                    return wrapStatement(statement, method.getReturnType(), sql);
+                }
+                return result;
+            });
+    }
+
+    private static Statement wrapStatement(Statement statement, Class<?> type, String preparedSql) {
+        Class<?> statementType = type == CallableStatement.class || type == PreparedStatement.class ? type : Statement.class;
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] {statementType},
+            (proxy, method, args) -> {
+                String name = method.getName();
+                if (name.startsWith("execute")) {
+                    String sql = preparedSql != null ? preparedSql : args != null && args.length > 0 ? (String) args[0] : null;
+                    long start = System.nanoTime();
+                    Object result = invoke(statement, method, args);
+                    long elapsed = System.nanoTime() - start;
+                    SqlStats.recordExecution(sql, elapsed, affectedRows(result));
+                    return result instanceof ResultSet resultSet ? wrapResultSet(resultSet) : result;
+                }
+                Object result = invoke(statement, method, args);
+                if (result instanceof ResultSet resultSet && ("getResultSet".equals(name) || "getGeneratedKeys".equals(name))) {
+                    return wrapResultSet(resultSet);
+                }
+                return result;
+            });
+    }
+
+    private static ResultSet wrapResultSet(ResultSet resultSet) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+            (proxy, method, args) -> {
+                Object result = invoke(resultSet, method, args);
+                if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                    SqlStats.recordRow();
+                }
+                return result;
+            });
+    }
+
+    private static long affectedRows(Object result) {
+        if (result instanceof Integer count) {
+            return count;
+        }
+        if (result instanceof Long count) {
+            return count;
+        }
+        long total = 0;
+        if (result instanceof int[] counts) {
+            for (int count : counts) {
+                total += Math.max(count, 0);
+            }
+        } else if (result instanceof long[] counts) {
+            for (long count : counts) {
+                total += Math.max(count, 0);
+            }
+        }
+        return total;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
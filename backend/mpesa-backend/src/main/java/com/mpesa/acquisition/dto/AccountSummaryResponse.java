@@ -0,0 +1,20 @@
+package com.mpesa.acquisition.dto;
+
+import com.mpesa.acquisition.entity.AccountSummary;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Body of a successful GET /api/accounts/{accountNumber}/summary. lastTransactionAt is null
+ * for an account without transactions.
+ */
+public record AccountSummaryResponse(String status, String accountNumber, long successfulCount, BigDecimal successfulTotal,
+                                     long reversedCount, BigDecimal reversedTotal, LocalDateTime lastTransactionAt) {
+
+    public static AccountSummaryResponse success(AccountSummary summary) {
+        return new AccountSummaryResponse("SUCCESS", summary.getAccountNumber(), summary.getSuccessfulCount(),
+            summary.getSuccessfulTotal(), summary.getReversedCount(), summary.getReversedTotal(),
+            summary.getLastTransactionAt());
+    }
+}
@@ -0,0 +1,13 @@
+package com.mpesa.acquisition.dto;
+
+import java.util.List;
+
+/**
+ * Body of a successful GET /api/applications or GET /api/applications/search.
+ */
+public record ApplicationListResponse(String status, List<ApplicationView> applications, int count) {
+
+    public static ApplicationListResponse success(List<ApplicationView> applications) {
+        return new ApplicationListResponse("SUCCESS", applications, applications.size());
+    }
+}
@@ -0,0 +1,13 @@
+package com.mpesa.acquisition.dto;
+
+import com.mpesa.acquisition.entity.Application;
+
+/**
+ * Body of a successful single application lookup.
+ */
+public record ApplicationResponse(String status, ApplicationView application) {
+
+    public static ApplicationResponse success(Application application) {
+        return new ApplicationResponse("SUCCESS", ApplicationView.from(application));
+    }
+}
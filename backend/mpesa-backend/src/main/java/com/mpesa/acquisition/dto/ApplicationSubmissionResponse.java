@@ -0,0 +1,17 @@
+package com.mpesa.acquisition.dto;
+
+import com.mpesa.acquisition.entity.Application;
+
+import java.time.LocalDateTime;
+
+/**
+ * Body of a successful application submit or draft save.
+ */
+public record ApplicationSubmissionResponse(String status, String message, Long applicationId, String accountNumber,
+                                            String applicationStatus, LocalDateTime submissionDate) {
+
+    public static ApplicationSubmissionResponse success(String message, Application application) {
+        return new ApplicationSubmissionResponse("SUCCESS", message, application.getId(), application.getAccountNumber(),
+            application.getStatus().getDisplayName(), application.getCreatedAt());
+    }
+}
@@ -0,0 +1,19 @@
+package com.mpesa.acquisition.dto;
+
+import com.mpesa.acquisition.entity.Application;
+
+import java.time.LocalDateTime;
+
+/**
+ * An application as returned by the read endpoints.
+ */
+public record ApplicationView(Long id, String bankName, String branchName, String accountName, String accountNumber,
+                              String proofOfBankAccount, Application.ApplicationStatus status,
+                              LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+    public static ApplicationView from(Application application) {
+        return new ApplicationView(application.getId(), application.getBankName(), application.getBranchName(),
+            application.getAccountName(), application.getAccountNumber(), application.getProofOfBankAccount(),
+            application.getStatus(), application.getCreatedAt(), application.getUpdatedAt());
+    }
+}
@@ -0,0 +1,25 @@
+package com.mpesa.acquisition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.mpesa.acquisition.entity.TransactionHistory;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One entry of a POST /api/transactions/batch response, at the index of its payload. A
+ * SUCCESS entry carries the transaction, a FAILED one only the account number and message.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchItemResult(int index, String status, String transactionId, String accountNumber,
+                              BigDecimal amount, String narration, LocalDateTime timestamp, String message) {
+
+    public static BatchItemResult success(int index, TransactionHistory transaction) {
+        return new BatchItemResult(index, "SUCCESS", transaction.getTransactionId(), transaction.getAccountNumber(),
+            transaction.getAmount(), transaction.getNarration(), transaction.getCreatedAt(), null);
+    }
+
+    public static BatchItemResult failed(int index, String accountNumber, String message) {
+        return new BatchItemResult(index, "FAILED", null, accountNumber, null, null, null, message);
+    }
+}
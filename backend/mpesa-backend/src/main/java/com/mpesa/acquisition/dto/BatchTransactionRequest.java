@@ -0,0 +1,31 @@
+package com.mpesa.acquisition.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class BatchTransactionRequest {
+
+    public static final int MAX_BATCH_SIZE = 5000;
+
+    // Items are validated one by one so that a bad entry only fails itself
+    @NotEmpty(message = "At least one transaction is required")
+    @Size(max = MAX_BATCH_SIZE, message = "A batch may contain at most " + MAX_BATCH_SIZE + " transactions")
+    private List<TransactionRequest> transactions;
+
+    // Constructors
+    public BatchTransactionRequest() {}
+
+    public BatchTransactionRequest(List<TransactionRequest> transactions) {
+        this.transactions = transactions;
+    }
+
+    // Getters and Setters
+    public List<TransactionRequest> getTransactions() {
+        return transactions;
+    }
+
+    public void setTransactions(List<TransactionRequest> transactions) {
+        this.transactions = transactions;
+    }
+}
@@ -0,0 +1,14 @@
+package com.mpesa.acquisition.dto;
+
+import java.util.List;
+
+/**
+ * Body of a POST /api/transactions/batch that was processed. Items that failed validation
+ * are reported in results without failing the batch.
+ */
+public record BatchTransactionResponse(String status, int total, int succeeded, int failed, List<BatchItemResult> results) {
+
+    public static BatchTransactionResponse success(List<BatchItemResult> results, int succeeded) {
+        return new BatchTransactionResponse("SUCCESS", results.size(), succeeded, results.size() - succeeded, results);
+    }
+}
@@ -0,0 +1,11 @@
+package com.mpesa.acquisition.dto;
+
+/**
+ * Body of every FAILED response.
+ */
+public record ErrorResponse(String status, String message) {
+
+    public static ErrorResponse failed(String message) {
+        return new ErrorResponse("FAILED", message);
+    }
+}
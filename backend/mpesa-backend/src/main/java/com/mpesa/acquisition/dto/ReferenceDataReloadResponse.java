@@ -0,0 +1,11 @@
+package com.mpesa.acquisition.dto;
+
+/**
+ * Body of a successful POST /api/admin/reference-data/reload, with the counts now served.
+ */
+public record ReferenceDataReloadResponse(String status, int banks, int branches) {
+
+    public static ReferenceDataReloadResponse success(int banks, int branches) {
+        return new ReferenceDataReloadResponse("SUCCESS", banks, branches);
+    }
+}
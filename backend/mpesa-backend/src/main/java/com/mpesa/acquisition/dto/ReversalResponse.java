@@ -0,0 +1,18 @@
+package com.mpesa.acquisition.dto;
+
+import com.mpesa.acquisition.entity.TransactionHistory;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Body of a successful POST /api/reverse.
+ */
+public record ReversalResponse(String status, String transactionId, String accountNumber,
+                               BigDecimal amount, String reversalReason, LocalDateTime timestamp) {
+
+    public static ReversalResponse success(TransactionHistory transaction, String reason) {
+        return new ReversalResponse("SUCCESS", transaction.getTransactionId(), transaction.getAccountNumber(),
+            transaction.getAmount(), reason, transaction.getCreatedAt());
+    }
+}
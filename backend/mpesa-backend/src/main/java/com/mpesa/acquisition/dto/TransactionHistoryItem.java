@@ -0,0 +1,20 @@
+package com.mpesa.acquisition.dto;
+
+import com.mpesa.acquisition.entity.TransactionHistory;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of a transaction history page.
+ */
+public record TransactionHistoryItem(Long id, String transactionId, String accountNumber, BigDecimal amount,
+                                     String narration, TransactionHistory.TransactionStatus status,
+                                     LocalDateTime createdAt) {
+
+    public static TransactionHistoryItem from(TransactionHistory transaction) {
+        return new TransactionHistoryItem(transaction.getId(), transaction.getTransactionId(),
+            transaction.getAccountNumber(), transaction.getAmount(), transaction.getNarration(),
+            transaction.getStatus(), transaction.getCreatedAt());
+    }
+}
@@ -0,0 +1,19 @@
+package com.mpesa.acquisition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Body of a successful GET /api/transactions/{accountNumber}. nextCursor is only present
+ * when hasMore is true.
+ */
+public record TransactionHistoryResponse(String status, String accountNumber, List<TransactionHistoryItem> transactions,
+                                         boolean hasMore,
+                                         @JsonInclude(JsonInclude.Include.NON_NULL) String nextCursor) {
+
+    public static TransactionHistoryResponse success(String accountNumber, List<TransactionHistoryItem> transactions,
+                                                     String nextCursor) {
+        return new TransactionHistoryResponse("SUCCESS", accountNumber, transactions, nextCursor != null, nextCursor);
+    }
+}
@@ -0,0 +1,18 @@
+package com.mpesa.acquisition.dto;
+
+import com.mpesa.acquisition.entity.TransactionHistory;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Body of a successful POST /api/transaction.
+ */
+public record TransactionResponse(String status, String transactionId, String accountNumber,
+                                  BigDecimal amount, String narration, LocalDateTime timestamp) {
+
+    public static TransactionResponse success(TransactionHistory transaction) {
+        return new TransactionResponse("SUCCESS", transaction.getTransactionId(), transaction.getAccountNumber(),
+            transaction.getAmount(), transaction.getNarration(), transaction.getCreatedAt());
+    }
+}
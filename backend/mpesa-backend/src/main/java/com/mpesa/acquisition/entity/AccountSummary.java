@@ -0,0 +1,90 @@
+package com.mpesa.acquisition.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Running totals per account, kept up to date with upsert increments in the same
+ * transaction as each transaction history write. Reversed transactions move from the
+ * successful totals to the reversed totals.
+ */
+@Entity
+@Table(name = "tbl_account_summary")
+public class AccountSummary {
+    @Id
+    @Column(name = "account_number")
+    private String accountNumber;
+
+    @Column(name = "successful_count", nullable = false)
+    private long successfulCount;
+
+    @Column(name = "successful_total", nullable = false, precision = 19, scale = 2)
+    private BigDecimal successfulTotal = BigDecimal.ZERO;
+
+    @Column(name = "reversed_count", nullable = false)
+    private long reversedCount;
+
+    @Column(name = "reversed_total", nullable = false, precision = 19, scale = 2)
+    private BigDecimal reversedTotal = BigDecimal.ZERO;
+
+    // Creation time of the newest successful or reversed transaction
+    @Column(name = "last_transaction_at")
+    private LocalDateTime lastTransactionAt;
+
+    // Constructors
+    public AccountSummary() {}
+
+    public AccountSummary(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    // Getters and Setters
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public long getSuccessfulCount() {
+        return successfulCount;
+    }
+
+    public void setSuccessfulCount(long successfulCount) {
+        this.successfulCount = successfulCount;
+    }
+
+    public BigDecimal getSuccessfulTotal() {
+        return successfulTotal;
+    }
+
+    public void setSuccessfulTotal(BigDecimal successfulTotal) {
+        this.successfulTotal = successfulTotal;
+    }
+
+    public long getReversedCount() {
+        return reversedCount;
+    }
+
+    public void setReversedCount(long reversedCount) {
+        this.reversedCount = reversedCount;
+    }
+
+    public BigDecimal getReversedTotal() {
+        return reversedTotal;
+    }
+
+    public void setReversedTotal(BigDecimal reversedTotal) {
+        this.reversedTotal = reversedTotal;
+    }
+
+    public LocalDateTime getLastTransactionAt() {
+        return lastTransactionAt;
+    }
+
+    public void setLastTransactionAt(LocalDateTime lastTransactionAt) {
+        this.lastTransactionAt = lastTransactionAt;
+    }
+}
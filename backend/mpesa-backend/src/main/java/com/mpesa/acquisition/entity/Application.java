@@ -9,7 +9,8 @@ import java.time.LocalDateTime;
 @Table(name = "tbl_application")
 public class Application {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tbl_application_id_seq")
+    @SequenceGenerator(name = "tbl_application_id_seq", sequenceName = "tbl_application_id_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Bank name is required")
@@ -8,7 +8,8 @@ import java.util.List;
 @Table(name = "tbl_bank")
 public class Bank {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tbl_bank_id_seq")
+    @SequenceGenerator(name = "tbl_bank_id_seq", sequenceName = "tbl_bank_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -7,7 +7,8 @@ import java.time.LocalDateTime;
 @Table(name = "tbl_branch")
 public class Branch {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tbl_branch_id_seq")
+    @SequenceGenerator(name = "tbl_branch_id_seq", sequenceName = "tbl_branch_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
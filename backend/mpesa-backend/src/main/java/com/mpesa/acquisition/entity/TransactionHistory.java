@@ -6,15 +6,19 @@ import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+// Partitioned by month on created_at, see schema.sql
 @Entity
-@Table(name = "tbl_transaction_history")
+@Table(name = "tbl_transaction_history", indexes = {
+    @Index(name = "idx_transaction_history_account_created_id", columnList = "account_number, created_at DESC, id DESC")
+})
 public class TransactionHistory {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tbl_transaction_history_id_seq")
+    @SequenceGenerator(name = "tbl_transaction_history_id_seq", sequenceName = "tbl_transaction_history_id_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Transaction ID is required")
-    @Column(name = "transaction_id", nullable = false, unique = true)
+    @Column(name = "transaction_id", nullable = false)
     private String transactionId;
 
     @NotBlank(message = "Account number is required")
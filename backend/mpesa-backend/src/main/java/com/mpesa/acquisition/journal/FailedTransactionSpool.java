@@ -0,0 +1,140 @@
+package com.mpesa.acquisition.journal;
+
+import com.mpesa.acquisition.entity.TransactionHistory;
+import com.mpesa.acquisition.repository.TransactionHistoryBatchWriter;
+import com.mpesa.acquisition.service.CircuitBreakerOpenException;
+import com.mpesa.acquisition.service.StatusCounters;
+import com.mpesa.acquisition.service.TransactionCircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local on-disk spool for FAILED transactions that could not be written to the database,
+ * usually while TransactionCircuitBreaker is open.
+ *
+ * Records are kept in a TransactionJournal of their own, so they survive a restart. A
+ * scheduled drainer replays them in batches through the circuit breaker once the database
+ * answers again; replays skip rows that already reached the database. The spool holds at
+ * most max-size-mb of records, and records arriving while it is full are dropped.
+ */
+@Component
+public class FailedTransactionSpool {
+
+    private static final Logger log = LoggerFactory.getLogger(FailedTransactionSpool.class);
+
+    @Autowired
+    private TransactionHistoryBatchWriter transactionHistoryBatchWriter;
+
+    @Autowired
+    private TransactionCircuitBreaker transactionCircuitBreaker;
+
+    @Autowired
+    private StatusCounters statusCounters;
+
+    private final TransactionJournal journal;
+    private final long maxBytes;
+    private final int drainBatchSize;
+
+    private final Counter spooled;
+    private final Counter drained;
+    private final Counter dropped;
+
+    public FailedTransactionSpool(MeterRegistry registry,
+                                  @Value("${mpesa.failure-spool.directory:./data/failure-spool}") String directory,
+                                  @Value("${mpesa.failure-spool.segment-size-mb:8}") int segmentSizeMb,
+                                  @Value("${mpesa.failure-spool.max-size-mb:64}") int maxSizeMb,
+                                  @Value("${mpesa.failure-spool.drain-batch-size:500}") int drainBatchSize) throws IOException {
+        this.journal = new TransactionJournal(directory, segmentSizeMb);
+        this.maxBytes = maxSizeMb * 1024L * 1024L;
+        this.drainBatchSize = drainBatchSize;
+
+        Gauge.builder("mpesa.failure.spool.pending.bytes", this, FailedTransactionSpool::getPendingBytes)
+            .description("Bytes of spooled transactions not yet replayed into the database")
+            .register(registry);
+        this.spooled = spoolCounter(registry, "mpesa.failure.spool.spooled", "FAILED transactions written to the local spool");
+        this.drained = spoolCounter(registry, "mpesa.failure.spool.drained", "Spooled transactions replayed into the database");
+        this.dropped = spoolCounter(registry, "mpesa.failure.spool.dropped", "FAILED transactions dropped because the spool was full");
+    }
+
+    /**
+     * Append the transactions and wait until they are on disk. Returns false, without
+     * writing anything, when the spool is full.
+     */
+    public boolean append(List<TransactionHistory> transactions) {
+        long position;
+        synchronized (this) {
+            if (getPendingBytes() >= maxBytes) {
+                dropped.increment(transactions.size());
+                return false;
+            }
+            position = 0;
+            for (TransactionHistory transaction : transactions) {
+                position = journal.append(transaction);
+            }
+        }
+        journal.awaitDurable(position);
+        spooled.increment(transactions.size());
+        return true;
+    }
+
+    public long getPendingBytes() {
+        return journal.getPendingBytes();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pendingBytes", getPendingBytes());
+        stats.put("spooled", (long) spooled.count());
+        stats.put("drained", (long) drained.count());
+        stats.put("dropped", (long) dropped.count());
+        return stats;
+    }
+
+    /**
+     * Replay spooled records until the spool is empty or the database fails again.
+     */
+    @Scheduled(initialDelayString = "${mpesa.failure-spool.drain-interval-ms:5000}",
+               fixedDelayString = "${mpesa.failure-spool.drain-interval-ms:5000}")
+    public void drain() {
+        long replayed = 0;
+        try {
+            while (journal.getCommittedPosition() < journal.getDurablePosition()) {
+                TransactionJournal.Batch batch = journal.read(journal.getCommittedPosition(), drainBatchSize);
+                transactionCircuitBreaker.call(() -> transactionHistoryBatchWriter.insertIgnoringDuplicates(batch.transactions()))
+                    .forEach(statusCounters::recordTransactions);
+                journal.markCommitted(batch.endPosition());
+                drained.increment(batch.transactions().size());
+                replayed += batch.transactions().size();
+            }
+        } catch (CircuitBreakerOpenException e) {
+            // Try again on the next run
+        } catch (Exception e) {
+            log.warn("Could not replay spooled failed transactions, {} bytes still pending", getPendingBytes(), e);
+        }
+        if (replayed > 0) {
+            log.info("Replayed {} spooled failed transactions", replayed);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    private static Counter spoolCounter(MeterRegistry registry, String name, String description) {
+        return Counter.builder(name).description(description).register(registry);
+    }
+}
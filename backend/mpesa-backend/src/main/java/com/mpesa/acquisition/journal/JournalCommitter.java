@@ -0,0 +1,90 @@
+package com.mpesa.acquisition.journal;
+
+import com.mpesa.acquisition.repository.TransactionHistoryBatchWriter;
+import com.mpesa.acquisition.service.StatusCounters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background thread that drains the TransactionJournal into tbl_transaction_history in
+ * large batches, one database transaction per batch, then advances the journal checkpoint.
+ */
+@Component
+@ConditionalOnProperty(name = "mpesa.journal.enabled", havingValue = "true")
+public class JournalCommitter implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalCommitter.class);
+
+    @Autowired
+    private TransactionJournal transactionJournal;
+
+    @Autowired
+    private TransactionHistoryBatchWriter transactionHistoryBatchWriter;
+
+    @Autowired
+    private StatusCounters statusCounters;
+
+    @Value("${mpesa.journal.commit-batch-size:2000}")
+    private int commitBatchSize;
+
+    @Value("${mpesa.journal.commit-interval-ms:20}")
+    private long commitIntervalMillis;
+
+    @Value("${mpesa.journal.retry-backoff-ms:1000}")
+    private long retryBackoffMillis;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        thread = new Thread(this, "journal-committer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    @Override
+    public void run() {
+        // Keep draining after stop() until the journal is empty or the database is unreachable
+        while (running || transactionJournal.getCommittedPosition() < transactionJournal.getDurablePosition()) {
+            long from = transactionJournal.getCommittedPosition();
+            if (from >= transactionJournal.getDurablePosition()) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(commitIntervalMillis));
+                continue;
+            }
+
+            try {
+                TransactionJournal.Batch batch = transactionJournal.read(from, commitBatchSize);
+                transactionHistoryBatchWriter.insertIgnoringDuplicates(batch.transactions())
+                    .forEach(statusCounters::recordTransactions);
+                transactionJournal.markCommitted(batch.endPosition());
+            } catch (Exception e) {
+                log.warn("Journal commit failed, retrying in {}ms", retryBackoffMillis, e);
+                if (!running) {
+                    return;
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(retryBackoffMillis));
+            }
+        }
+    }
+}
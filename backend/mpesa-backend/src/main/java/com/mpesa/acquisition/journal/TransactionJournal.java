@@ -0,0 +1,396 @@
+package com.mpesa.acquisition.journal;
+
+import com.mpesa.acquisition.entity.TransactionHistory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Local write-ahead journal for accepted transactions.
+ *
+ * Records are appended to fixed-size memory-mapped segment files as
+ * [payload length][CRC32C][payload]. A zero length or a bad checksum marks the end of
+ * a segment. Positions are global: segment sequence * segment size + offset.
+ *
+ * appendDurably() returns once the record has been forced to disk. Callers that arrive
+ * while a force is running wait for it and are then covered by one force together
+ * (group commit). JournalCommitter drains durable records into Postgres and moves the
+ * checkpoint forward; fully committed segments are deleted. After a restart, everything
+ * after the checkpoint is drained again, and the insert skips transaction IDs that
+ * already reached the database.
+ */
+@Component
+@ConditionalOnProperty(name = "mpesa.journal.enabled", havingValue = "true")
+public class TransactionJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionJournal.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    private static final TransactionHistory.TransactionStatus[] STATUSES = TransactionHistory.TransactionStatus.values();
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FileChannel checkpointChannel;
+
+    // Guarded by this
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private Segment active;
+    private int writeOffset;
+
+    // A lock rather than a monitor, so virtual threads waiting on a force do not pin their carriers
+    private final ReentrantLock forceLock = new ReentrantLock();
+    private volatile long durablePosition;
+    private volatile long committedPosition;
+
+    public TransactionJournal(@Value("${mpesa.journal.directory:./data/journal}") String directory,
+                              @Value("${mpesa.journal.segment-size-mb:64}") int segmentSizeMb) throws IOException {
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+        Files.createDirectories(this.directory);
+
+        this.checkpointChannel = FileChannel.open(this.directory.resolve(CHECKPOINT_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+    }
+
+    /**
+     * Append the transaction and wait until it is on disk.
+     */
+    public void appendDurably(TransactionHistory transaction) {
+        awaitDurable(append(transaction));
+    }
+
+    long append(TransactionHistory transaction) {
+        byte[] payload = encode(transaction);
+        int recordSize = RECORD_HEADER_BYTES + payload.length;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("Transaction is too large for a journal segment");
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+
+        synchronized (this) {
+            if (writeOffset + recordSize > segmentSize) {
+                roll();
+            }
+
+            MappedByteBuffer buffer = active.buffer;
+            buffer.putInt(writeOffset + 4, (int) crc.getValue());
+            buffer.put(writeOffset + RECORD_HEADER_BYTES, payload);
+            buffer.putInt(writeOffset, payload.length);
+            writeOffset += recordSize;
+            return position(active.sequence, writeOffset);
+        }
+    }
+
+    void awaitDurable(long position) {
+        forceLock.lock();
+        try {
+            if (durablePosition >= position) {
+                return;
+            }
+
+            Segment segment;
+            long target;
+            synchronized (this) {
+                segment = active;
+                target = position(active.sequence, writeOffset);
+            }
+            segment.buffer.force();
+            durablePosition = target;
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    public long getDurablePosition() {
+        return durablePosition;
+    }
+
+    public long getCommittedPosition() {
+        return committedPosition;
+    }
+
+    /**
+     * Bytes of the durable records after the checkpoint. Unlike the distance between the two
+     * positions, this leaves out unused segment tails, including the fresh segment every
+     * restart starts.
+     */
+    public long getPendingBytes() {
+        long from = committedPosition;
+        long to = durablePosition;
+        long pending = 0;
+        synchronized (this) {
+            for (Segment segment : segments.subMap(from / segmentSize, true, to / segmentSize, true).values()) {
+                int end = segment == active ? writeOffset : segment.end;
+                long start = Math.max(from, position(segment.sequence, 0));
+                pending += Math.max(0, Math.min(to, position(segment.sequence, end)) - start);
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Read up to maxRecords durable records starting at the given position.
+     */
+    public Batch read(long from, int maxRecords) {
+        long to = durablePosition;
+        List<TransactionHistory> transactions = new ArrayList<>();
+        long position = from;
+
+        while (position < to && transactions.size() < maxRecords) {
+            long sequence = position / segmentSize;
+            int offset = (int) (position % segmentSize);
+            Segment segment;
+            synchronized (this) {
+                segment = segments.get(sequence);
+            }
+            if (segment == null) {
+                position = position(sequence + 1, 0);
+                continue;
+            }
+
+            ByteBuffer view = segment.buffer.duplicate();
+            byte[] payload = readRecord(view, offset);
+            if (payload == null) {
+                // End of this segment
+                position = position(sequence + 1, 0);
+                continue;
+            }
+
+            transactions.add(decode(payload));
+            position = position(sequence, offset + RECORD_HEADER_BYTES + payload.length);
+        }
+
+        return new Batch(transactions, Math.min(position, Math.max(to, from)));
+    }
+
+    /**
+     * Record that everything before the position is in the database.
+     */
+    public void markCommitted(long position) throws IOException {
+        ByteBuffer checkpoint = ByteBuffer.allocate(Long.BYTES);
+        checkpoint.putLong(0, position);
+        checkpointChannel.write(checkpoint, 0);
+        checkpointChannel.force(false);
+        committedPosition = position;
+
+        long committedSequence = position / segmentSize;
+        List<Segment> obsolete = new ArrayList<>();
+        synchronized (this) {
+            while (!segments.isEmpty() && segments.firstKey() < committedSequence && segments.firstKey() < active.sequence) {
+                obsolete.add(segments.pollFirstEntry().getValue());
+            }
+        }
+        for (Segment segment : obsolete) {
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        synchronized (this) {
+            active.buffer.force();
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+        }
+        checkpointChannel.close();
+    }
+
+    private void recover() throws IOException {
+        ByteBuffer checkpoint = ByteBuffer.allocate(Long.BYTES);
+        long checkpointPosition = checkpointChannel.read(checkpoint, 0) == Long.BYTES ? checkpoint.getLong(0) : 0;
+        long checkpointSequence = checkpointPosition / segmentSize;
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)).sorted().toList();
+        }
+
+        long end = checkpointPosition;
+        long lastSequence = checkpointSequence - 1;
+        for (Path path : files) {
+            String name = path.getFileName().toString();
+            long sequence = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            if (sequence < checkpointSequence) {
+                Files.deleteIfExists(path);
+                continue;
+            }
+
+            Segment segment = openSegment(sequence);
+
+            // Find the end of the valid records in this segment
+            ByteBuffer view = segment.buffer.duplicate();
+            int start = sequence == checkpointSequence ? (int) (checkpointPosition % segmentSize) : 0;
+            int offset = start;
+            byte[] payload;
+            while ((payload = readRecord(view, offset)) != null) {
+                offset += RECORD_HEADER_BYTES + payload.length;
+            }
+
+            // A segment opened by an earlier run that never wrote to it; read() skips the gap
+            if (offset == start && sequence > checkpointSequence) {
+                segment.channel.close();
+                Files.deleteIfExists(path);
+                continue;
+            }
+
+            segment.end = offset;
+            segments.put(sequence, segment);
+            lastSequence = Math.max(lastSequence, sequence);
+            end = Math.max(end, position(sequence, offset));
+        }
+
+        // Never append after a possibly torn tail; start a fresh segment instead
+        active = openSegment(Math.max(lastSequence, checkpointSequence) + 1);
+        segments.put(active.sequence, active);
+        writeOffset = 0;
+
+        committedPosition = checkpointPosition;
+        durablePosition = end;
+        if (end > checkpointPosition) {
+            log.info("Transaction journal recovered uncommitted records up to position {}", end);
+        }
+    }
+
+    private void roll() {
+        active.buffer.force();
+        active.end = writeOffset;
+        Segment next = openSegment(active.sequence + 1);
+        segments.put(next.sequence, next);
+        active = next;
+        writeOffset = 0;
+    }
+
+    private Segment openSegment(long sequence) {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        try {
+            FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            return new Segment(sequence, path, channel, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open journal segment " + path, e);
+        }
+    }
+
+    private long position(long sequence, int offset) {
+        return sequence * segmentSize + offset;
+    }
+
+    private byte[] readRecord(ByteBuffer view, int offset) {
+        if (offset + RECORD_HEADER_BYTES > segmentSize) {
+            return null;
+        }
+
+        int length = view.getInt(offset);
+        if (length <= 0 || offset + RECORD_HEADER_BYTES + length > segmentSize) {
+            return null;
+        }
+
+        byte[] payload = new byte[length];
+        view.get(offset + RECORD_HEADER_BYTES, payload);
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue() == view.getInt(offset + 4) ? payload : null;
+    }
+
+    static byte[] encode(TransactionHistory transaction) {
+        byte[] transactionId = transaction.getTransactionId().getBytes(StandardCharsets.UTF_8);
+        byte[] accountNumber = transaction.getAccountNumber().getBytes(StandardCharsets.UTF_8);
+        byte[] amount = transaction.getAmount().toPlainString().getBytes(StandardCharsets.UTF_8);
+        byte[] narration = transaction.getNarration() == null ? null : transaction.getNarration().getBytes(StandardCharsets.UTF_8);
+
+        LocalDateTime createdAt = transaction.getCreatedAt();
+        ByteBuffer buffer = ByteBuffer.allocate(4 * 4 + transactionId.length + accountNumber.length + amount.length
+            + (narration == null ? 0 : narration.length) + 1 + Long.BYTES + Integer.BYTES);
+        putBytes(buffer, transactionId);
+        putBytes(buffer, accountNumber);
+        putBytes(buffer, amount);
+        putBytes(buffer, narration);
+        buffer.put((byte) transaction.getStatus().ordinal());
+        buffer.putLong(createdAt.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(createdAt.getNano());
+        return buffer.array();
+    }
+
+    static TransactionHistory decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        TransactionHistory transaction = new TransactionHistory();
+        transaction.setTransactionId(getString(buffer));
+        transaction.setAccountNumber(getString(buffer));
+        transaction.setAmount(new BigDecimal(getString(buffer)));
+        transaction.setNarration(getString(buffer));
+        transaction.setStatus(STATUSES[buffer.get()]);
+        transaction.setCreatedAt(LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC));
+        return transaction;
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    public record Batch(List<TransactionHistory> transactions, long endPosition) {
+    }
+
+    private static final class Segment {
+        private final long sequence;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        // Offset after the last record, once the segment is no longer written to; guarded by the journal
+        private int end;
+
+        Segment(long sequence, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
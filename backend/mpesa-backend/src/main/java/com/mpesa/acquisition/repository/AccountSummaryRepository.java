@@ -0,0 +1,40 @@
+package com.mpesa.acquisition.repository;
+
+import com.mpesa.acquisition.entity.AccountSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Repository
+public interface AccountSummaryRepository extends JpaRepository<AccountSummary, String> {
+
+    String COLUMNS = "account_number, successful_count, successful_total, reversed_count, reversed_total, last_transaction_at";
+
+    // Adds the inserted row's values to an existing summary instead of replacing it
+    String ADD_ON_CONFLICT = " ON CONFLICT (account_number) DO UPDATE SET " +
+        "successful_count = tbl_account_summary.successful_count + EXCLUDED.successful_count, " +
+        "successful_total = tbl_account_summary.successful_total + EXCLUDED.successful_total, " +
+        "reversed_count = tbl_account_summary.reversed_count + EXCLUDED.reversed_count, " +
+        "reversed_total = tbl_account_summary.reversed_total + EXCLUDED.reversed_total, " +
+        "last_transaction_at = GREATEST(tbl_account_summary.last_transaction_at, EXCLUDED.last_transaction_at)";
+
+    String APPLY_DELTA_SQL = "INSERT INTO tbl_account_summary (" + COLUMNS + ") VALUES (:accountNumber, " +
+        ":successfulCount, :successfulTotal, :reversedCount, :reversedTotal, :lastTransactionAt)" + ADD_ON_CONFLICT;
+
+    /**
+     * Add the given counts and totals to the account's summary in one statement, creating it if needed.
+     */
+    @Modifying
+    @Query(value = APPLY_DELTA_SQL, nativeQuery = true)
+    void applyDelta(@Param("accountNumber") String accountNumber,
+                    @Param("successfulCount") long successfulCount,
+                    @Param("successfulTotal") BigDecimal successfulTotal,
+                    @Param("reversedCount") long reversedCount,
+                    @Param("reversedTotal") BigDecimal reversedTotal,
+                    @Param("lastTransactionAt") LocalDateTime lastTransactionAt);
+}
@@ -1,13 +1,19 @@
 package com.mpesa.acquisition.repository;
 
+import com.mpesa.acquisition.dto.ApplicationView;
 import com.mpesa.acquisition.entity.Application;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ApplicationRepository extends JpaRepository<Application, Long> {
@@ -16,12 +22,43 @@ public interface ApplicationRepository extends JpaRepository<Application, Long>
 
     boolean existsByAccountNumber(String accountNumber);
 
+    @Query("SELECT a.status FROM Application a WHERE a.accountNumber = :accountNumber")
+    Optional<Application.ApplicationStatus> findStatusByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Query("SELECT a.accountNumber FROM Application a")
+    List<String> findAllAccountNumbers();
+
+    @Query("SELECT new com.mpesa.acquisition.dto.ApplicationView(a.id, a.bankName, a.branchName, a.accountName, " +
+        "a.accountNumber, a.proofOfBankAccount, a.status, a.createdAt, a.updatedAt) FROM Application a ORDER BY a.id")
+    List<ApplicationView> findAllViewsOrderById();
+
+    @Query("SELECT a.accountNumber AS accountNumber, a.status AS status FROM Application a WHERE a.accountNumber IN :accountNumbers")
+    List<AccountStatusView> findStatusesByAccountNumberIn(@Param("accountNumbers") Collection<String> accountNumbers);
+
     @Query("SELECT a FROM Application a WHERE a.status = :status ORDER BY a.createdAt DESC")
     List<Application> findByStatusOrderByCreatedAtDesc(@Param("status") Application.ApplicationStatus status);
 
     @Query("SELECT a FROM Application a WHERE a.bankName = :bankName ORDER BY a.createdAt DESC")
     List<Application> findByBankNameOrderByCreatedAtDesc(@Param("bankName") String bankName);
 
+    /**
+     * Forward-only cursor over all applications. Must be consumed inside a transaction and closed;
+     * rows come from the driver in chunks of the fetch size.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT a FROM Application a ORDER BY a.id")
+    Stream<Application> streamAllOrderById();
+
     @Query("SELECT COUNT(a) FROM Application a WHERE a.status = :status")
     Long countByStatus(@Param("status") Application.ApplicationStatus status);
+
+    interface AccountStatusView {
+        String getAccountNumber();
+
+        Application.ApplicationStatus getStatus();
+    }
 }
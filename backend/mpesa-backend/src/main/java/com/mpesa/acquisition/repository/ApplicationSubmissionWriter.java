@@ -0,0 +1,85 @@
+package com.mpesa.acquisition.repository;
+
+import com.mpesa.acquisition.entity.Application;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Inserts applications in a single statement.
+ *
+ * The bank and branch pairing is checked in the same statement as the insert, and a
+ * duplicate account number is left to the unique constraint with ON CONFLICT DO NOTHING,
+ * so concurrent submissions of one account number create exactly one row.
+ */
+@Repository
+@Timed("mpesa.repository")
+public class ApplicationSubmissionWriter {
+
+    // The pairing row exists when the bank does; branch_id is null unless the branch belongs to it.
+    // The outer SELECT reports which check failed, or the id of the inserted row.
+    private static final String INSERT_SQL =
+        "WITH pairing AS (" +
+        "SELECT br.id AS branch_id FROM tbl_bank b " +
+        "LEFT JOIN tbl_branch br ON br.id = :branchId AND br.bank_id = b.id WHERE b.id = :bankId), " +
+        "inserted AS (" +
+        "INSERT INTO tbl_application (bank_name, branch_name, account_name, account_number, " +
+        "proof_of_bank_account, status, created_at, updated_at) " +
+        "SELECT :bankName, :branchName, :accountName, :accountNumber, :proofOfBankAccount, :status, :createdAt, :createdAt " +
+        "FROM pairing WHERE branch_id IS NOT NULL " +
+        "ON CONFLICT (account_number) DO NOTHING RETURNING id) " +
+        "SELECT EXISTS (SELECT 1 FROM pairing) AS bank_found, " +
+        "EXISTS (SELECT 1 FROM pairing WHERE branch_id IS NOT NULL) AS branch_found, " +
+        "(SELECT id FROM inserted) AS id";
+
+    public enum Outcome {
+        CREATED,
+        INVALID_BANK,
+        INVALID_BRANCH,
+        DUPLICATE_ACCOUNT_NUMBER
+    }
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Insert the application if the bank exists, the branch belongs to it and the account
+     * number is new. On CREATED the id and timestamps are set on the application.
+     */
+    public Outcome insert(Application application, Long bankId, Long branchId) {
+        LocalDateTime now = LocalDateTime.now();
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+            .addValue("bankId", bankId)
+            .addValue("branchId", branchId)
+            .addValue("bankName", application.getBankName())
+            .addValue("branchName", application.getBranchName())
+            .addValue("accountName", application.getAccountName())
+            .addValue("accountNumber", application.getAccountNumber())
+            .addValue("proofOfBankAccount", application.getProofOfBankAccount())
+            .addValue("status", application.getStatus().name())
+            .addValue("createdAt", Timestamp.valueOf(now));
+
+        return namedParameterJdbcTemplate.queryForObject(INSERT_SQL, parameters, (rs, rowNum) -> {
+            if (!rs.getBoolean("bank_found")) {
+                return Outcome.INVALID_BANK;
+            }
+            if (!rs.getBoolean("branch_found")) {
+                return Outcome.INVALID_BRANCH;
+            }
+
+            long id = rs.getLong("id");
+            if (rs.wasNull()) {
+                return Outcome.DUPLICATE_ACCOUNT_NUMBER;
+            }
+            application.setId(id);
+            application.setCreatedAt(now);
+            application.setUpdatedAt(now);
+            return Outcome.CREATED;
+        });
+    }
+}
@@ -0,0 +1,93 @@
+package com.mpesa.acquisition.repository;
+
+import com.mpesa.acquisition.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByIdempotencyKey(String idempotencyKey);
+
+    /**
+     * Insert an in-progress record for the key. Returns 0 when the key is already taken.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO tbl_idempotency_key (idempotency_key, transaction_id, created_at, claimed_until, expires_at) " +
+                   "VALUES (:idempotencyKey, :transactionId, :createdAt, :claimedUntil, :expiresAt) " +
+                   "ON CONFLICT (idempotency_key) DO NOTHING", nativeQuery = true)
+    int claim(@Param("idempotencyKey") String idempotencyKey,
+              @Param("transactionId") String transactionId,
+              @Param("createdAt") LocalDateTime createdAt,
+              @Param("claimedUntil") LocalDateTime claimedUntil,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Store the response of the claim made at claimedAt. Joins the caller's transaction, if
+     * any. Returns 0 when the claim was released or taken over.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.responseStatus = :responseStatus, r.responseBody = :responseBody, " +
+           "r.claimedUntil = null " +
+           "WHERE r.idempotencyKey = :idempotencyKey AND r.createdAt = :claimedAt AND r.responseStatus IS NULL")
+    int complete(@Param("idempotencyKey") String idempotencyKey,
+                 @Param("claimedAt") LocalDateTime claimedAt,
+                 @Param("responseStatus") Integer responseStatus,
+                 @Param("responseBody") String responseBody);
+
+    /**
+     * Claim the key again if its record has expired but not been purged. Returns 0 when the
+     * record is still live, including when another node took it over first.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.transactionId = :transactionId, r.createdAt = :createdAt, " +
+           "r.claimedUntil = :claimedUntil, r.expiresAt = :expiresAt, r.responseStatus = null, r.responseBody = null " +
+           "WHERE r.idempotencyKey = :idempotencyKey AND r.expiresAt < :createdAt")
+    int takeOverExpired(@Param("idempotencyKey") String idempotencyKey,
+                        @Param("transactionId") String transactionId,
+                        @Param("createdAt") LocalDateTime createdAt,
+                        @Param("claimedUntil") LocalDateTime claimedUntil,
+                        @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Claim the key from the in-progress claim made at claimedAt, once its lease has run out.
+     * Returns 0 when that claim completed, was released or was taken over first.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.transactionId = :transactionId, r.createdAt = :createdAt, " +
+           "r.claimedUntil = :claimedUntil, r.expiresAt = :expiresAt " +
+           "WHERE r.idempotencyKey = :idempotencyKey AND r.createdAt = :claimedAt AND r.responseStatus IS NULL " +
+           "AND r.claimedUntil < :createdAt")
+    int takeOverLapsed(@Param("idempotencyKey") String idempotencyKey,
+                       @Param("claimedAt") LocalDateTime claimedAt,
+                       @Param("transactionId") String transactionId,
+                       @Param("createdAt") LocalDateTime createdAt,
+                       @Param("claimedUntil") LocalDateTime claimedUntil,
+                       @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Delete the in-progress claim made at claimedAt, so the key can be used again.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r " +
+           "WHERE r.idempotencyKey = :idempotencyKey AND r.createdAt = :claimedAt AND r.responseStatus IS NULL")
+    int release(@Param("idempotencyKey") String idempotencyKey,
+                @Param("claimedAt") LocalDateTime claimedAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
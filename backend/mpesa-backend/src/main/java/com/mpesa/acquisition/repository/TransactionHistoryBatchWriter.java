@@ -0,0 +1,178 @@
+package com.mpesa.acquisition.repository;
+
+import com.mpesa.acquisition.entity.TransactionHistory;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes transaction history rows with JDBC batch inserts.
+ *
+ * Bulk paths go through JdbcTemplate rather than the persistence context, so large
+ * batches do not fill the session and ids come from the column default. Combined with
+ * reWriteBatchedInserts on the Postgres driver this sends multi-row INSERTs.
+ * tbl_transaction_id and tbl_account_summary are updated in the same database transaction.
+ */
+@Repository
+@Timed("mpesa.repository")
+public class TransactionHistoryBatchWriter {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO tbl_transaction_history (transaction_id, account_number, amount, narration, status, created_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+
+    // One statement for the whole list: a row is inserted only if its ID is new to tbl_transaction_id,
+    // whatever its created_at, and only inserted rows reach the summary. The result is the number
+    // inserted per status. Summaries are upserted in account number order, like applySummaryDeltas,
+    // so concurrent batches lock them in the same order.
+    private static final String INSERT_IGNORING_DUPLICATES_SQL =
+        "WITH candidate AS (" +
+        "SELECT DISTINCT ON (transaction_id) * FROM unnest(?::varchar[], ?::varchar[], ?::numeric[], ?::text[], ?::varchar[], ?::timestamp[]) " +
+        "AS c (transaction_id, account_number, amount, narration, status, created_at)), " +
+        "claimed AS (" +
+        "INSERT INTO tbl_transaction_id (transaction_id, created_at) SELECT transaction_id, created_at FROM candidate " +
+        "ON CONFLICT (transaction_id) DO NOTHING RETURNING transaction_id), " +
+        "inserted AS (" +
+        "INSERT INTO tbl_transaction_history (transaction_id, account_number, amount, narration, status, created_at) " +
+        "SELECT candidate.* FROM candidate JOIN claimed USING (transaction_id) " +
+        "RETURNING account_number, amount, status, created_at), " +
+        "summary AS (INSERT INTO tbl_account_summary (" + AccountSummaryRepository.COLUMNS + ") " +
+        "SELECT account_number, COUNT(*), SUM(amount), 0, 0, MAX(created_at) FROM inserted " +
+        "WHERE status = 'SUCCESS' GROUP BY account_number ORDER BY account_number" +
+        AccountSummaryRepository.ADD_ON_CONFLICT + ") " +
+        "SELECT status, COUNT(*) FROM inserted GROUP BY status";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionIdRepository transactionIdRepository;
+
+    @Value("${mpesa.transaction.batch.jdbc-batch-size:500}")
+    private int jdbcBatchSize;
+
+    /**
+     * Insert all rows in a single database transaction. Callers must set createdAt,
+     * since @PrePersist does not run for JDBC writes. Throws DuplicateKeyException, and
+     * inserts nothing, if any transaction ID is already stored.
+     */
+    @Transactional
+    public void insertAll(List<TransactionHistory> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+
+        transactionIdRepository.insertAll(transactions);
+        jdbcTemplate.batchUpdate(INSERT_SQL, transactions, jdbcBatchSize, (ps, transaction) -> {
+            ps.setString(1, transaction.getTransactionId());
+            ps.setString(2, transaction.getAccountNumber());
+            ps.setBigDecimal(3, transaction.getAmount());
+            ps.setString(4, transaction.getNarration());
+            ps.setString(5, transaction.getStatus().name());
+            ps.setTimestamp(6, Timestamp.valueOf(transaction.getCreatedAt()));
+        });
+        applySummaryDeltas(transactions);
+    }
+
+    /**
+     * Like insertAll, but skips rows whose transaction ID is already stored, so replays are
+     * safe even when a replayed row carries a different created_at. Returns the number of
+     * rows inserted per status.
+     */
+    @Transactional
+    public Map<TransactionHistory.TransactionStatus, Long> insertIgnoringDuplicates(List<TransactionHistory> transactions) {
+        Map<TransactionHistory.TransactionStatus, Long> inserted = new EnumMap<>(TransactionHistory.TransactionStatus.class);
+        if (transactions.isEmpty()) {
+            return inserted;
+        }
+
+        int size = transactions.size();
+        String[] transactionIds = new String[size];
+        String[] accountNumbers = new String[size];
+        BigDecimal[] amounts = new BigDecimal[size];
+        String[] narrations = new String[size];
+        String[] statuses = new String[size];
+        Timestamp[] createdAts = new Timestamp[size];
+        for (int i = 0; i < size; i++) {
+            TransactionHistory transaction = transactions.get(i);
+            transactionIds[i] = transaction.getTransactionId();
+            accountNumbers[i] = transaction.getAccountNumber();
+            amounts[i] = transaction.getAmount();
+            narrations[i] = transaction.getNarration();
+            statuses[i] = transaction.getStatus().name();
+            createdAts[i] = Timestamp.valueOf(transaction.getCreatedAt());
+        }
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_IGNORING_DUPLICATES_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", transactionIds));
+            ps.setArray(2, connection.createArrayOf("varchar", accountNumbers));
+            ps.setArray(3, connection.createArrayOf("numeric", amounts));
+            ps.setArray(4, connection.createArrayOf("text", narrations));
+            ps.setArray(5, connection.createArrayOf("varchar", statuses));
+            ps.setArray(6, connection.createArrayOf("timestamp", createdAts));
+            return ps;
+        }, rs -> {
+            inserted.put(TransactionHistory.TransactionStatus.valueOf(rs.getString(1)), rs.getLong(2));
+        });
+        return inserted;
+    }
+
+    // One upsert per account rather than per transaction, in account number order so that
+    // concurrent batches touching the same accounts cannot deadlock on tbl_account_summary
+    private void applySummaryDeltas(List<TransactionHistory> transactions) {
+        Map<String, SummaryDelta> deltas = new TreeMap<>();
+        for (TransactionHistory transaction : transactions) {
+            if (transaction.getStatus() == TransactionHistory.TransactionStatus.SUCCESS) {
+                deltas.computeIfAbsent(transaction.getAccountNumber(), accountNumber -> new SummaryDelta())
+                    .add(transaction.getAmount(), transaction.getCreatedAt());
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        SqlParameterSource[] parameters = deltas.entrySet().stream()
+            .map(entry -> new MapSqlParameterSource()
+                .addValue("accountNumber", entry.getKey())
+                .addValue("successfulCount", entry.getValue().count)
+                .addValue("successfulTotal", entry.getValue().total)
+                .addValue("reversedCount", 0)
+                .addValue("reversedTotal", BigDecimal.ZERO)
+                .addValue("lastTransactionAt", Timestamp.valueOf(entry.getValue().lastTransactionAt)))
+            .toArray(SqlParameterSource[]::new);
+        namedParameterJdbcTemplate.batchUpdate(AccountSummaryRepository.APPLY_DELTA_SQL, parameters);
+    }
+
+    private static final class SummaryDelta {
+        private long count;
+        private BigDecimal total = BigDecimal.ZERO;
+        private LocalDateTime lastTransactionAt;
+
+        void add(BigDecimal amount, LocalDateTime createdAt) {
+            count++;
+            total = total.add(amount);
+            if (lastTransactionAt == null || createdAt.isAfter(lastTransactionAt)) {
+                lastTransactionAt = createdAt;
+            }
+        }
+    }
+}
@@ -5,17 +5,54 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TransactionHistoryRepository extends JpaRepository<TransactionHistory, Long> {
 
-    Optional<TransactionHistory> findByTransactionId(String transactionId);
+    // Lookups by transaction ID take created_at from tbl_transaction_id, so only the partition
+    // that holds the row is scanned
 
+    @Query(value = "SELECT * FROM tbl_transaction_history WHERE transaction_id = :transactionId " +
+                   "AND created_at = " + TransactionIdRepository.CREATED_AT_OF_ID, nativeQuery = true)
+    Optional<TransactionHistory> findByTransactionId(@Param("transactionId") String transactionId);
+
+    @Query(value = "SELECT status FROM tbl_transaction_history WHERE transaction_id = :transactionId " +
+                   "AND created_at = " + TransactionIdRepository.CREATED_AT_OF_ID, nativeQuery = true)
+    Optional<TransactionHistory.TransactionStatus> findStatusByTransactionId(@Param("transactionId") String transactionId);
+
+    /**
+     * Flip a SUCCESS transaction to REVERSED in one statement. Empty when no SUCCESS row matched,
+     * so concurrent reversals of the same transaction cannot both succeed.
+     */
+    @Transactional
+    @Query(value = "UPDATE tbl_transaction_history SET status = 'REVERSED', " +
+                   "narration = COALESCE(narration, '') || ' - REVERSED: ' || :reason " +
+                   "WHERE transaction_id = :transactionId AND created_at = " + TransactionIdRepository.CREATED_AT_OF_ID +
+                   " AND status = 'SUCCESS' RETURNING *", nativeQuery = true)
+    Optional<TransactionHistory> reverseIfSuccessful(@Param("transactionId") String transactionId,
+                                                     @Param("reason") String reason);
+
+    // Reads every partition, each through its (account_number, created_at DESC, id DESC) index
     List<TransactionHistory> findByAccountNumberOrderByCreatedAtDesc(String accountNumber);
 
+    @Query(value = "SELECT * FROM tbl_transaction_history WHERE account_number = :accountNumber " +
+                   "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<TransactionHistory> findFirstPageByAccountNumber(@Param("accountNumber") String accountNumber,
+                                                          @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM tbl_transaction_history WHERE account_number = :accountNumber " +
+                   "AND created_at <= :createdAt AND (created_at, id) < (:createdAt, :id) " +
+                   "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<TransactionHistory> findPageByAccountNumberBefore(@Param("accountNumber") String accountNumber,
+                                                           @Param("createdAt") LocalDateTime createdAt,
+                                                           @Param("id") Long id,
+                                                           @Param("limit") int limit);
+
     @Query("SELECT t FROM TransactionHistory t WHERE t.status = :status ORDER BY t.createdAt DESC")
     List<TransactionHistory> findByStatusOrderByCreatedAtDesc(@Param("status") TransactionHistory.TransactionStatus status);
 
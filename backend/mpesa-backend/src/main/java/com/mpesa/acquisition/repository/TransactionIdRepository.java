@@ -0,0 +1,64 @@
+package com.mpesa.acquisition.repository;
+
+import com.mpesa.acquisition.entity.TransactionHistory;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * tbl_transaction_id, the unpartitioned guard that keeps transaction IDs unique across the
+ * monthly partitions of tbl_transaction_history.
+ *
+ * Every write to tbl_transaction_history adds the ID here in the same database transaction,
+ * so a second row with the same ID fails on the primary key whatever its created_at. The
+ * stored created_at also tells lookups by ID which partition holds the row. Rows stay while
+ * the transaction is kept in Postgres or in the archive.
+ */
+@Repository
+@Timed("mpesa.repository")
+public class TransactionIdRepository {
+
+    // created_at of the given ID, for native queries on tbl_transaction_history that bind :transactionId
+    public static final String CREATED_AT_OF_ID =
+        "(SELECT created_at FROM tbl_transaction_id WHERE transaction_id = :transactionId)";
+
+    private static final String INSERT_SQL = "INSERT INTO tbl_transaction_id (transaction_id, created_at) VALUES (?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${mpesa.transaction.batch.jdbc-batch-size:500}")
+    private int jdbcBatchSize;
+
+    /**
+     * Claim the ID. Throws DuplicateKeyException if it is already stored.
+     */
+    public void insert(String transactionId, LocalDateTime createdAt) {
+        jdbcTemplate.update(INSERT_SQL, transactionId, Timestamp.valueOf(createdAt));
+    }
+
+    /**
+     * Claim the IDs of all rows in JDBC batches. Throws DuplicateKeyException if any is already stored.
+     */
+    public void insertAll(List<TransactionHistory> transactions) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, transactions, jdbcBatchSize, (ps, transaction) -> {
+            ps.setString(1, transaction.getTransactionId());
+            ps.setTimestamp(2, Timestamp.valueOf(transaction.getCreatedAt()));
+        });
+    }
+
+    /**
+     * Forget the IDs of transactions created in the month, once its rows are gone for good.
+     */
+    public int deleteCreatedIn(YearMonth month) {
+        return jdbcTemplate.update("DELETE FROM tbl_transaction_id WHERE created_at >= ? AND created_at < ?",
+            Timestamp.valueOf(month.atDay(1).atStartOfDay()), Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()));
+    }
+}
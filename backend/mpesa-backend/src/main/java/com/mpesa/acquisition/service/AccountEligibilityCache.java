@@ -0,0 +1,226 @@
+package com.mpesa.acquisition.service;
+
+import com.mpesa.acquisition.entity.Application;
+import com.mpesa.acquisition.repository.ApplicationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caches account number to application status for the payment path, so that
+ * processTransaction does not load the whole Application on every call.
+ *
+ * The cache is bounded and evicts with the CLOCK (second chance) policy, which keeps
+ * hot merchant accounts resident without taking a lock on reads. An optional Bloom filter
+ * over all known account numbers sits in front of it and rejects unknown accounts without
+ * a database read. The filter is loaded at startup and fed by ApplicationController,
+ * so it only sees applications written through this node; it is off by default and must
+ * stay off when several nodes accept applications. Cache misses are read through
+ * TransactionCircuitBreaker.
+ */
+@Component
+public class AccountEligibilityCache implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountEligibilityCache.class);
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    @Autowired
+    private TransactionCircuitBreaker transactionCircuitBreaker;
+
+    private final int maxSize;
+    private final boolean bloomFilterEnabled;
+    private final BloomFilter bloomFilter;
+    private volatile boolean bloomFilterReady;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private Iterator<Map.Entry<String, Entry>> clockHand;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder bloomRejections = new LongAdder();
+
+    public AccountEligibilityCache(@Value("${mpesa.eligibility-cache.max-size:10000}") int maxSize,
+                                   @Value("${mpesa.eligibility-cache.bloom-filter.enabled:false}") boolean bloomFilterEnabled,
+                                   @Value("${mpesa.eligibility-cache.bloom-filter.expected-accounts:1000000}") long expectedAccounts,
+                                   @Value("${mpesa.eligibility-cache.bloom-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.maxSize = maxSize;
+        this.bloomFilterEnabled = bloomFilterEnabled;
+        this.bloomFilter = bloomFilterEnabled ? new BloomFilter(expectedAccounts, falsePositiveRate) : null;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!bloomFilterEnabled) {
+            return;
+        }
+
+        List<String> accountNumbers = applicationRepository.findAllAccountNumbers();
+        for (String accountNumber : accountNumbers) {
+            bloomFilter.put(accountNumber);
+        }
+        bloomFilterReady = true;
+        log.info("Account eligibility Bloom filter loaded with {} accounts", accountNumbers.size());
+    }
+
+    /**
+     * Status of the application for the account, or null when no application exists.
+     */
+    public Application.ApplicationStatus getStatus(String accountNumber) {
+        if (isKnownAbsent(accountNumber)) {
+            return null;
+        }
+
+        Application.ApplicationStatus status = getCached(accountNumber);
+        if (status != null) {
+            return status;
+        }
+
+        status = transactionCircuitBreaker.call(() -> applicationRepository.findStatusByAccountNumber(accountNumber))
+            .orElse(null);
+        if (status != null) {
+            cache(accountNumber, status);
+        }
+        return status;
+    }
+
+    /**
+     * Statuses for many accounts, loading every cache miss with a single query.
+     * Accounts without an application are absent from the result.
+     */
+    public Map<String, Application.ApplicationStatus> getStatuses(Collection<String> accountNumbers) {
+        Map<String, Application.ApplicationStatus> statuses = new HashMap<>();
+        List<String> toLoad = new ArrayList<>();
+
+        for (String accountNumber : accountNumbers) {
+            if (isKnownAbsent(accountNumber)) {
+                continue;
+            }
+
+            Application.ApplicationStatus status = getCached(accountNumber);
+            if (status != null) {
+                statuses.put(accountNumber, status);
+            } else {
+                toLoad.add(accountNumber);
+            }
+        }
+
+        if (!toLoad.isEmpty()) {
+            List<ApplicationRepository.AccountStatusView> views =
+                transactionCircuitBreaker.call(() -> applicationRepository.findStatusesByAccountNumberIn(toLoad));
+            for (ApplicationRepository.AccountStatusView view : views) {
+                statuses.put(view.getAccountNumber(), view.getStatus());
+                cache(view.getAccountNumber(), view.getStatus());
+            }
+        }
+
+        return statuses;
+    }
+
+    /**
+     * Record an application that was just written.
+     */
+    public void update(String accountNumber, Application.ApplicationStatus status) {
+        if (bloomFilterEnabled) {
+            bloomFilter.put(accountNumber);
+        }
+        cache(accountNumber, status);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("bloomFilterEnabled", bloomFilterEnabled);
+        stats.put("bloomFilterReady", bloomFilterReady);
+        stats.put("bloomFilterRejections", bloomRejections.sum());
+        return stats;
+    }
+
+    private boolean isKnownAbsent(String accountNumber) {
+        if (bloomFilterReady && !bloomFilter.mightContain(accountNumber)) {
+            bloomRejections.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private Application.ApplicationStatus getCached(String accountNumber) {
+        Entry entry = entries.get(accountNumber);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        return entry.status;
+    }
+
+    private void cache(String accountNumber, Application.ApplicationStatus status) {
+        entries.put(accountNumber, new Entry(status));
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    private void evict() {
+        // One thread evicts at a time; others may briefly overshoot maxSize
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+
+        try {
+            while (entries.size() > maxSize) {
+                if (clockHand == null || !clockHand.hasNext()) {
+                    clockHand = entries.entrySet().iterator();
+                    if (!clockHand.hasNext()) {
+                        return;
+                    }
+                }
+
+                Map.Entry<String, Entry> candidate = clockHand.next();
+                Entry entry = candidate.getValue();
+                if (entry.referenced) {
+                    entry.referenced = false;
+                } else if (entries.remove(candidate.getKey(), entry)) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static final class Entry {
+        private final Application.ApplicationStatus status;
+        private volatile boolean referenced;
+
+        private Entry(Application.ApplicationStatus status) {
+            this.status = status;
+        }
+    }
+}
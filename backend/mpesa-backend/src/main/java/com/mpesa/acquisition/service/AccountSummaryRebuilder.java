@@ -0,0 +1,233 @@
+package com.mpesa.acquisition.service;
+
+import com.mpesa.acquisition.archive.TransactionArchive;
+import com.mpesa.acquisition.entity.AccountSummary;
+import com.mpesa.acquisition.repository.AccountSummaryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Recomputes tbl_account_summary from tbl_transaction_history, plus the archive when it is
+ * enabled, one range of account numbers at a time. Runs at startup when
+ * mpesa.account-summary.rebuild.on-startup=true; the instance serves requests meanwhile.
+ *
+ * Each range covers about mpesa.account-summary.rebuild.batch-rows history rows and is
+ * rebuilt in its own transaction, which locks only the range's summary rows. Payments write
+ * the history row and the summary increment in one transaction, so once a summary row is
+ * locked its history holds every committed payment and later payments add on top of the
+ * rebuilt value. Accounts with history but no summary row get one before the lock is taken.
+ *
+ * The archived totals are read once at the start, so do not run it while the archiver is
+ * moving a month (mpesa.archive.cron).
+ */
+@Service
+public class AccountSummaryRebuilder implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountSummaryRebuilder.class);
+
+    private static final String COUNTED = "status IN ('SUCCESS', 'REVERSED')";
+
+    private static final String UPDATE_SQL = "UPDATE tbl_account_summary SET successful_count = ?, successful_total = ?, " +
+        "reversed_count = ?, reversed_total = ?, last_transaction_at = ? WHERE account_number = ?";
+
+    private static final RowMapper<AccountSummary> SUMMARY_MAPPER = (rs, rowNum) -> {
+        AccountSummary summary = new AccountSummary(rs.getString("account_number"));
+        summary.setSuccessfulCount(rs.getLong("successful_count"));
+        summary.setSuccessfulTotal(rs.getBigDecimal("successful_total"));
+        summary.setReversedCount(rs.getLong("reversed_count"));
+        summary.setReversedTotal(rs.getBigDecimal("reversed_total"));
+        Timestamp lastTransactionAt = rs.getTimestamp("last_transaction_at");
+        summary.setLastTransactionAt(lastTransactionAt == null ? null : lastTransactionAt.toLocalDateTime());
+        return summary;
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Present only when mpesa.archive.enabled=true
+    @Autowired(required = false)
+    private TransactionArchive transactionArchive;
+
+    private final TransactionTemplate transactionTemplate;
+    private final boolean onStartup;
+    private final int batchRows;
+
+    public AccountSummaryRebuilder(PlatformTransactionManager transactionManager,
+                                   @Value("${mpesa.account-summary.rebuild.on-startup:false}") boolean onStartup,
+                                   @Value("${mpesa.account-summary.rebuild.batch-rows:10000}") int batchRows) {
+        if (batchRows < 1) {
+            throw new IllegalArgumentException("mpesa.account-summary.rebuild.batch-rows must be positive, got " + batchRows);
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.onStartup = onStartup;
+        this.batchRows = batchRows;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (onStartup) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Recompute every account summary. Returns the number of summaries that were corrected.
+     */
+    public int rebuild() {
+        Map<String, TransactionArchive.AccountTotals> archived =
+            transactionArchive == null ? Map.of() : transactionArchive.accountTotals();
+        // Archived accounts not seen in any range; they get their summary at the end
+        Set<String> archivedOnly = new HashSet<>(archived.keySet());
+
+        int ranges = 0;
+        int corrected = 0;
+        String from = "";
+        while (from != null) {
+            String to = nextBoundary(from);
+            corrected += rebuild(Accounts.range(from, to), archived, archivedOnly);
+            ranges++;
+            from = to;
+        }
+
+        List<String> remaining = new ArrayList<>(archivedOnly);
+        for (int start = 0; start < remaining.size(); start += batchRows) {
+            List<String> chunk = remaining.subList(start, Math.min(start + batchRows, remaining.size()));
+            corrected += rebuild(Accounts.listed(chunk), archived, archivedOnly);
+            ranges++;
+        }
+
+        log.info("Rebuilt account summaries in {} ranges, corrected {}", ranges, corrected);
+        return corrected;
+    }
+
+    // Last account number of the next range, or null if the range runs to the end
+    private String nextBoundary(String from) {
+        List<String> boundary = jdbcTemplate.queryForList(
+            "SELECT account_number FROM tbl_transaction_history WHERE account_number > ? " +
+            "ORDER BY account_number OFFSET ? LIMIT 1", String.class, from, batchRows - 1);
+        return boundary.isEmpty() ? null : boundary.get(0);
+    }
+
+    private int rebuild(Accounts accounts, Map<String, TransactionArchive.AccountTotals> archived, Set<String> archivedOnly) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.update("INSERT INTO tbl_account_summary (account_number, successful_count, successful_total, " +
+                "reversed_count, reversed_total) SELECT account_number, 0, 0, 0, 0 FROM (" + accounts.needingRows() + ") a " +
+                "ON CONFLICT (account_number) DO NOTHING", accounts.setter());
+
+            List<AccountSummary> stored = jdbcTemplate.query("SELECT " + AccountSummaryRepository.COLUMNS +
+                " FROM tbl_account_summary WHERE " + accounts.condition() + " ORDER BY account_number FOR UPDATE",
+                accounts.setter(), SUMMARY_MAPPER);
+
+            Map<String, AccountSummary> fromHistory = new HashMap<>();
+            jdbcTemplate.query("SELECT account_number, " +
+                "COUNT(*) FILTER (WHERE status = 'SUCCESS') AS successful_count, " +
+                "COALESCE(SUM(amount) FILTER (WHERE status = 'SUCCESS'), 0) AS successful_total, " +
+                "COUNT(*) FILTER (WHERE status = 'REVERSED') AS reversed_count, " +
+                "COALESCE(SUM(amount) FILTER (WHERE status = 'REVERSED'), 0) AS reversed_total, " +
+                "MAX(created_at) AS last_transaction_at " +
+                "FROM tbl_transaction_history WHERE " + COUNTED + " AND " + accounts.condition() + " GROUP BY account_number",
+                accounts.setter(), SUMMARY_MAPPER).forEach(summary -> fromHistory.put(summary.getAccountNumber(), summary));
+
+            List<AccountSummary> updated = new ArrayList<>();
+            List<String> deleted = new ArrayList<>();
+            for (AccountSummary current : stored) {
+                String accountNumber = current.getAccountNumber();
+                AccountSummary expected = fromHistory.getOrDefault(accountNumber, new AccountSummary(accountNumber));
+                TransactionArchive.AccountTotals archivedTotals = archived.get(accountNumber);
+                if (archivedTotals != null) {
+                    add(expected, archivedTotals);
+                }
+                archivedOnly.remove(accountNumber);
+
+                if (expected.getSuccessfulCount() == 0 && expected.getReversedCount() == 0) {
+                    deleted.add(accountNumber);
+                } else if (!sameTotals(current, expected)) {
+                    updated.add(expected);
+                }
+            }
+
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updated, updated.size(), (ps, summary) -> {
+                ps.setLong(1, summary.getSuccessfulCount());
+                ps.setBigDecimal(2, summary.getSuccessfulTotal());
+                ps.setLong(3, summary.getReversedCount());
+                ps.setBigDecimal(4, summary.getReversedTotal());
+                ps.setTimestamp(5, Timestamp.valueOf(summary.getLastTransactionAt()));
+                ps.setString(6, summary.getAccountNumber());
+            });
+            jdbcTemplate.batchUpdate("DELETE FROM tbl_account_summary WHERE account_number = ?", deleted, deleted.size(),
+                (ps, accountNumber) -> ps.setString(1, accountNumber));
+            return updated.size() + deleted.size();
+        });
+    }
+
+    private static void add(AccountSummary summary, TransactionArchive.AccountTotals totals) {
+        summary.setSuccessfulCount(summary.getSuccessfulCount() + totals.getSuccessfulCount());
+        summary.setSuccessfulTotal(summary.getSuccessfulTotal().add(totals.getSuccessfulTotal()));
+        summary.setReversedCount(summary.getReversedCount() + totals.getReversedCount());
+        summary.setReversedTotal(summary.getReversedTotal().add(totals.getReversedTotal()));
+        if (summary.getLastTransactionAt() == null || totals.getLastTransactionAt().isAfter(summary.getLastTransactionAt())) {
+            summary.setLastTransactionAt(totals.getLastTransactionAt());
+        }
+    }
+
+    private static boolean sameTotals(AccountSummary a, AccountSummary b) {
+        return a.getSuccessfulCount() == b.getSuccessfulCount()
+            && a.getSuccessfulTotal().compareTo(b.getSuccessfulTotal()) == 0
+            && a.getReversedCount() == b.getReversedCount()
+            && a.getReversedTotal().compareTo(b.getReversedTotal()) == 0
+            && Objects.equals(a.getLastTransactionAt(), b.getLastTransactionAt());
+    }
+
+    /**
+     * The accounts rebuilt in one transaction: a range of account numbers, or a list of
+     * archived accounts. The condition and the query for accounts that need a summary row
+     * bind the same arguments.
+     */
+    private record Accounts(String condition, String needingRows, Object[] args) {
+
+        // (from, to], or everything after from when to is null
+        static Accounts range(String from, String to) {
+            String condition = to == null ? "account_number > ?" : "account_number > ? AND account_number <= ?";
+            return new Accounts(condition,
+                "SELECT DISTINCT account_number FROM tbl_transaction_history WHERE " + COUNTED + " AND " + condition,
+                to == null ? new Object[] {from} : new Object[] {from, to});
+        }
+
+        static Accounts listed(List<String> accountNumbers) {
+            return new Accounts("account_number = ANY(?::varchar[])",
+                "SELECT unnest(?::varchar[]) AS account_number",
+                new Object[] {accountNumbers.toArray(new String[0])});
+        }
+
+        PreparedStatementSetter setter() {
+            return ps -> {
+                for (int i = 0; i < args.length; i++) {
+                    if (args[i] instanceof String[] values) {
+                        ps.setArray(i + 1, ps.getConnection().createArrayOf("varchar", values));
+                    } else {
+                        ps.setString(i + 1, (String) args[i]);
+                    }
+                }
+            };
+        }
+    }
+}
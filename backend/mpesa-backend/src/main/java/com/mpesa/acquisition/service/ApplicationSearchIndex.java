@@ -0,0 +1,265 @@
+package com.mpesa.acquisition.service;
+
+import com.mpesa.acquisition.dto.ApplicationView;
+import com.mpesa.acquisition.repository.ApplicationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory search over applications for the dashboard type-ahead.
+ *
+ * Account numbers go into a trie, so a prefix query walks down to the prefix and then
+ * collects matches in account-number order. Account names are lower-cased and split into
+ * every 1, 2 and 3 character gram, each with a posting list of application ordinals.
+ * Queries of up to three characters read one posting list directly; longer queries
+ * walk the rarest trigram's posting list, prune with the next rarest, and confirm each
+ * candidate with contains.
+ *
+ * The index is loaded at startup and fed by ApplicationController, so like the eligibility
+ * Bloom filter it only sees applications written through this node.
+ */
+@Component
+public class ApplicationSearchIndex implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ApplicationSearchIndex.class);
+
+    private static final int MAX_GRAM = 3;
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Ordinal to application; ordinals grow with insertion, so higher means newer
+    private final List<ApplicationView> applications = new ArrayList<>();
+    private final List<String> normalizedNames = new ArrayList<>();
+    private final TrieNode accountNumbers = new TrieNode();
+    private final Map<String, Postings> nameGrams = new HashMap<>();
+
+    private volatile boolean ready;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        List<ApplicationView> views = applicationRepository.findAllViewsOrderById();
+
+        lock.writeLock().lock();
+        try {
+            for (ApplicationView view : views) {
+                insert(view);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Application search index loaded with {} applications in {} ms",
+            views.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Record an application that was just written.
+     */
+    public void add(ApplicationView application) {
+        lock.writeLock().lock();
+        try {
+            insert(application);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applications whose account number starts with accountNumberPrefix and whose account name
+     * contains nameQuery, ignoring case. Either may be null. Prefix-only results are in
+     * account-number order; results with a name query are newest first.
+     */
+    public List<ApplicationView> search(String accountNumberPrefix, String nameQuery, int limit) {
+        String name = nameQuery == null ? null : normalize(nameQuery);
+        lock.readLock().lock();
+        try {
+            if (name == null || name.isEmpty()) {
+                return searchByAccountNumber(accountNumberPrefix == null ? "" : accountNumberPrefix, limit);
+            }
+            return searchByName(name, accountNumberPrefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("ready", ready);
+            stats.put("applications", applications.size());
+            stats.put("nameGrams", nameGrams.size());
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<ApplicationView> searchByAccountNumber(String prefix, int limit) {
+        TrieNode node = accountNumbers;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+
+        List<ApplicationView> results = new ArrayList<>(Math.min(limit, 64));
+        if (node != null) {
+            collect(node, results, limit);
+        }
+        return results;
+    }
+
+    private void collect(TrieNode node, List<ApplicationView> results, int limit) {
+        if (node.ordinal >= 0) {
+            results.add(applications.get(node.ordinal));
+        }
+        for (int i = 0; i < node.size && results.size() < limit; i++) {
+            collect(node.children[i], results, limit);
+        }
+    }
+
+    private List<ApplicationView> searchByName(String name, String accountNumberPrefix, int limit) {
+        Postings[] lists;
+        boolean exact = name.length() <= MAX_GRAM;
+        if (exact) {
+            Postings postings = nameGrams.get(name);
+            if (postings == null) {
+                return List.of();
+            }
+            lists = new Postings[] {postings};
+        } else {
+            Set<String> grams = new LinkedHashSet<>();
+            for (int i = 0; i + MAX_GRAM <= name.length(); i++) {
+                grams.add(name.substring(i, i + MAX_GRAM));
+            }
+
+            lists = new Postings[grams.size()];
+            int i = 0;
+            for (String gram : grams) {
+                Postings postings = nameGrams.get(gram);
+                if (postings == null) {
+                    return List.of();
+                }
+                lists[i++] = postings;
+            }
+            // Drive the intersection from the rarest gram
+            Arrays.sort(lists, Comparator.comparingInt(postings -> postings.size));
+        }
+
+        List<ApplicationView> results = new ArrayList<>(Math.min(limit, 64));
+        Postings driver = lists[0];
+        for (int i = driver.size - 1; i >= 0 && results.size() < limit; i--) {
+            int ordinal = driver.ordinals[i];
+            // One more posting list prunes most candidates; contains is cheaper than the rest
+            if (lists.length > 1 && Arrays.binarySearch(lists[1].ordinals, 0, lists[1].size, ordinal) < 0) {
+                continue;
+            }
+            if (!exact && !normalizedNames.get(ordinal).contains(name)) {
+                continue;
+            }
+
+            ApplicationView application = applications.get(ordinal);
+            if (accountNumberPrefix == null || application.accountNumber().startsWith(accountNumberPrefix)) {
+                results.add(application);
+            }
+        }
+        return results;
+    }
+
+    private void insert(ApplicationView application) {
+        String accountNumber = application.accountNumber();
+        TrieNode node = accountNumbers;
+        for (int i = 0; i < accountNumber.length(); i++) {
+            node = node.getOrAddChild(accountNumber.charAt(i));
+        }
+        // Account numbers are unique; an application saved during the startup load arrives twice
+        if (node.ordinal >= 0) {
+            return;
+        }
+
+        int ordinal = applications.size();
+        String name = application.accountName() == null ? "" : normalize(application.accountName());
+        applications.add(application);
+        normalizedNames.add(name);
+        node.ordinal = ordinal;
+
+        for (int length = 1; length <= MAX_GRAM; length++) {
+            for (int i = 0; i + length <= name.length(); i++) {
+                nameGrams.computeIfAbsent(name.substring(i, i + length), gram -> new Postings()).add(ordinal);
+            }
+        }
+    }
+
+    private static String normalize(String text) {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class TrieNode {
+        private char[] keys = new char[0];
+        private TrieNode[] children = new TrieNode[0];
+        private int size;
+        private int ordinal = -1;
+
+        private TrieNode child(char key) {
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private TrieNode getOrAddChild(char key) {
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index >= 0) {
+                return children[index];
+            }
+
+            // Keep children sorted so collection walks account numbers in order
+            int insertAt = -index - 1;
+            if (size == keys.length) {
+                int capacity = Math.max(2, size * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, insertAt, keys, insertAt + 1, size - insertAt);
+            System.arraycopy(children, insertAt, children, insertAt + 1, size - insertAt);
+            TrieNode child = new TrieNode();
+            keys[insertAt] = key;
+            children[insertAt] = child;
+            size++;
+            return child;
+        }
+    }
+
+    // Ascending ordinals, each at most once
+    private static final class Postings {
+        private int[] ordinals = new int[2];
+        private int size;
+
+        private void add(int ordinal) {
+            if (size > 0 && ordinals[size - 1] == ordinal) {
+                return;
+            }
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+    }
+}
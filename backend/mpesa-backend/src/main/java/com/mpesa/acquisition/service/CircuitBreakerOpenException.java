@@ -0,0 +1,11 @@
+package com.mpesa.acquisition.service;
+
+/**
+ * Thrown instead of calling the database while TransactionCircuitBreaker is open.
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    public CircuitBreakerOpenException(String message) {
+        super(message, null, false, false);
+    }
+}
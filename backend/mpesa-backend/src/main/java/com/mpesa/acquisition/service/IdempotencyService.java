@@ -0,0 +1,296 @@
+package com.mpesa.acquisition.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mpesa.acquisition.dto.ErrorResponse;
+import com.mpesa.acquisition.dto.TransactionResponse;
+import com.mpesa.acquisition.entity.IdempotencyRecord;
+import com.mpesa.acquisition.entity.TransactionHistory;
+import com.mpesa.acquisition.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Replays stored responses for requests that carry an Idempotency-Key header.
+ *
+ * Completed responses live in a bounded in-memory map backed by tbl_idempotency_key,
+ * whose unique constraint arbitrates between nodes. Duplicates arriving while the first
+ * request is still running wait for it on this node, and get 409 on other nodes.
+ * Server errors are not stored, so the client can retry them with the same key.
+ *
+ * A payment stores its response through {@link Claim#complete} in the same database
+ * transaction as the payment, so a key is never left claimed by a committed payment. An
+ * in-progress claim is leased for mpesa.idempotency.claim-lease-ms; after that a retry
+ * replays the claim's payment if it is in the transaction history, or else takes the key
+ * over. Completing checks that the claim is still the current one, so a payment still
+ * running when its key is taken over rolls back instead of being made twice.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final TypeReference<Map<String, Object>> BODY_TYPE = new TypeReference<>() {};
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionCircuitBreaker transactionCircuitBreaker;
+
+    @Autowired
+    private TransactionLedgerService transactionLedgerService;
+
+    private final long ttlMinutes;
+    private final long claimLeaseMillis;
+    private final long waitTimeoutMillis;
+    private final Map<String, StoredResponse> recent;
+    private final ConcurrentHashMap<String, CompletableFuture<ResponseEntity<?>>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(@Value("${mpesa.idempotency.ttl-minutes:1440}") long ttlMinutes,
+                              @Value("${mpesa.idempotency.claim-lease-ms:60000}") long claimLeaseMillis,
+                              @Value("${mpesa.idempotency.wait-timeout-ms:30000}") long waitTimeoutMillis,
+                              @Value("${mpesa.idempotency.cache-size:10000}") int cacheSize) {
+        this.ttlMinutes = ttlMinutes;
+        this.claimLeaseMillis = claimLeaseMillis;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Run the action once per key and return its response, or the stored response for a repeated key.
+     * The claim records transactionId as the ID the action gives its payment.
+     */
+    public ResponseEntity<?> execute(String key, String transactionId, Function<Claim, ResponseEntity<?>> action) {
+        StoredResponse cached = recent.get(key);
+        if (cached != null && cached.expiresAt().isAfter(LocalDateTime.now())) {
+            return cached.replay();
+        }
+
+        CompletableFuture<ResponseEntity<?>> mine = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<?>> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return awaitRunning(running);
+        }
+
+        try {
+            ResponseEntity<?> response = executeOwned(key, transactionId, action);
+            mine.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private ResponseEntity<?> executeOwned(String key, String transactionId, Function<Claim, ResponseEntity<?>> action) {
+        // Truncated to the column's precision, since the claim is matched on it
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        LocalDateTime claimedUntil = now.plus(claimLeaseMillis, ChronoUnit.MILLIS);
+        LocalDateTime expiresAt = now.plusMinutes(ttlMinutes);
+
+        // An expired record that has not been purged yet is taken over in place; the
+        // conditional update lets exactly one node win when several see it expired.
+        // Claims go through the breaker so a failing database is not hit before the payment.
+        boolean claimed = transactionCircuitBreaker.call(
+            () -> idempotencyRecordRepository.claim(key, transactionId, now, claimedUntil, expiresAt) == 1
+                || idempotencyRecordRepository.takeOverExpired(key, transactionId, now, claimedUntil, expiresAt) == 1);
+        if (!claimed) {
+            Optional<IdempotencyRecord> existing =
+                transactionCircuitBreaker.call(() -> idempotencyRecordRepository.findByIdempotencyKey(key));
+            if (existing.isEmpty()) {
+                // Purged or released between the claim and the lookup
+                return executeOwned(key, transactionId, action);
+            }
+
+            IdempotencyRecord record = existing.get();
+            if (record.isCompleted()) {
+                return replay(key, record.getResponseStatus(), readBody(record.getResponseBody()), record.getExpiresAt());
+            }
+
+            if (record.getClaimedUntil() == null || !record.getClaimedUntil().isBefore(now)) {
+                return inProgress();
+            }
+
+            // The lease ran out: the claiming request died, failed to store its response,
+            // or is still running and will be rolled back once the key is taken over
+            Optional<TransactionHistory> paid = record.getTransactionId() == null ? Optional.empty()
+                : transactionCircuitBreaker.call(() -> transactionLedgerService.findByTransactionId(record.getTransactionId()));
+            if (paid.isPresent()) {
+                ResponseEntity<?> response = ResponseEntity.ok(TransactionResponse.success(paid.get()));
+                try {
+                    transactionCircuitBreaker.run(() -> new Claim(key, record.getTransactionId(), record.getCreatedAt()).complete(response));
+                } catch (IllegalStateException e) {
+                    // Completed or taken over by another request since the lookup
+                    return executeOwned(key, transactionId, action);
+                }
+                log.info("Replayed payment {} for lapsed idempotency key {}", record.getTransactionId(), key);
+                return replay(key, response.getStatusCode().value(), response.getBody(), record.getExpiresAt());
+            }
+
+            boolean takenOver = transactionCircuitBreaker.call(() -> idempotencyRecordRepository.takeOverLapsed(
+                key, record.getCreatedAt(), transactionId, now, claimedUntil, expiresAt) == 1);
+            if (!takenOver) {
+                // Completed, released or taken over by another request since the lookup
+                return executeOwned(key, transactionId, action);
+            }
+            log.info("Took over lapsed idempotency key {}", key);
+        }
+
+        Claim claim = new Claim(key, transactionId, now);
+        ResponseEntity<?> response;
+        try {
+            response = action.apply(claim);
+        } catch (RuntimeException e) {
+            idempotencyRecordRepository.release(key, now);
+            throw e;
+        }
+
+        if (response.getStatusCode().is5xxServerError()) {
+            idempotencyRecordRepository.release(key, now);
+            return response;
+        }
+
+        if (!claim.completed) {
+            try {
+                claim.complete(response);
+            } catch (RuntimeException e) {
+                // The claim lapses after the lease and a retry checks for the payment then
+                log.warn("Failed to store response for idempotency key {}", key, e);
+                return response;
+            }
+        }
+        recent.put(key, new StoredResponse(response.getStatusCode().value(), response.getBody(), expiresAt));
+        return response;
+    }
+
+    private ResponseEntity<?> awaitRunning(CompletableFuture<ResponseEntity<?>> running) {
+        try {
+            return running.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inProgress();
+        } catch (ExecutionException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ErrorResponse.failed("Transaction processing failed"));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${mpesa.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int purged = idempotencyRecordRepository.deleteExpired(now);
+        synchronized (recent) {
+            recent.values().removeIf(stored -> stored.expiresAt().isBefore(now));
+        }
+        if (purged > 0) {
+            log.debug("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private ResponseEntity<?> replay(String key, int status, Object body, LocalDateTime expiresAt) {
+        StoredResponse stored = new StoredResponse(status, body, expiresAt);
+        recent.put(key, stored);
+        return stored.replay();
+    }
+
+    private static ResponseEntity<?> inProgress() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+            .body(ErrorResponse.failed("A request with this Idempotency-Key is still in progress"));
+    }
+
+    private String writeBody(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize response for idempotency key", e);
+        }
+    }
+
+    private Map<String, Object> readBody(String body) {
+        try {
+            return body == null ? null : objectMapper.readValue(body, BODY_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read stored response for idempotency key", e);
+        }
+    }
+
+    /**
+     * The key as claimed by the running request.
+     */
+    public final class Claim {
+
+        private final String key;
+        private final String transactionId;
+        private final LocalDateTime claimedAt;
+        private boolean completed;
+
+        private Claim(String key, String transactionId, LocalDateTime claimedAt) {
+            this.key = key;
+            this.transactionId = transactionId;
+            this.claimedAt = claimedAt;
+        }
+
+        /**
+         * The ID the payment must use, so a retry can find it if the response is not stored.
+         */
+        public String getTransactionId() {
+            return transactionId;
+        }
+
+        /**
+         * Store the response, inside the caller's database transaction when there is one.
+         * Throws IllegalStateException, rolling that transaction back, if the key was taken
+         * over by another request.
+         */
+        public void complete(ResponseEntity<?> response) {
+            int updated = idempotencyRecordRepository.complete(key, claimedAt,
+                response.getStatusCode().value(), writeBody(response.getBody()));
+            if (updated != 1) {
+                throw new IllegalStateException("Idempotency key " + key + " is no longer held by this request");
+            }
+            completed = true;
+        }
+    }
+
+    // Bodies read back from tbl_idempotency_key are plain maps with the same JSON fields
+    private record StoredResponse(int status, Object body, LocalDateTime expiresAt) {
+
+        ResponseEntity<?> replay() {
+            return ResponseEntity.status(status).header("Idempotent-Replayed", "true").body(body);
+        }
+    }
+}
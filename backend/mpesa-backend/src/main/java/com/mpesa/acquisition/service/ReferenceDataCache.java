@@ -0,0 +1,96 @@
+package com.mpesa.acquisition.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mpesa.acquisition.entity.Bank;
+import com.mpesa.acquisition.entity.Branch;
+import com.mpesa.acquisition.repository.BankRepository;
+import com.mpesa.acquisition.repository.BranchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the current ReferenceDataSnapshot for BankController.
+ *
+ * Banks and branches only change when DataInitializer seeds them or an admin reloads
+ * them, so the JSON bodies and their ETags are computed once per reload and the
+ * snapshot reference is swapped atomically.
+ */
+@Component
+public class ReferenceDataCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    @Autowired
+    private BankRepository bankRepository;
+
+    @Autowired
+    private BranchRepository branchRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile ReferenceDataSnapshot snapshot;
+
+    public ReferenceDataSnapshot getSnapshot() {
+        ReferenceDataSnapshot current = snapshot;
+        return current != null ? current : reload();
+    }
+
+    /**
+     * Rebuild the snapshot from the database and publish it.
+     */
+    public synchronized ReferenceDataSnapshot reload() {
+        List<Bank> banks = bankRepository.findAllOrderByValue();
+        List<Branch> branches = branchRepository.findAll(Sort.by("bankId", "value"));
+
+        Map<Long, List<Branch>> branchesByBank = new HashMap<>();
+        for (Branch branch : branches) {
+            branchesByBank.computeIfAbsent(branch.getBankId(), id -> new ArrayList<>()).add(branch);
+        }
+
+        long[] bankIds = banks.stream().mapToLong(Bank::getId).sorted().toArray();
+        byte[][] branchesJson = new byte[bankIds.length][];
+        String[] branchesEtags = new String[bankIds.length];
+        for (int i = 0; i < bankIds.length; i++) {
+            branchesJson[i] = toJson(branchesByBank.getOrDefault(bankIds[i], List.of()));
+            branchesEtags[i] = etag(branchesJson[i]);
+        }
+
+        byte[] banksJson = toJson(banks);
+        ReferenceDataSnapshot reloaded = new ReferenceDataSnapshot(banksJson, etag(banksJson), bankIds,
+            branchesJson, branchesEtags, branches.size());
+        snapshot = reloaded;
+
+        log.info("Reference data snapshot loaded with {} banks and {} branches", bankIds.length, branches.size());
+        return reloaded;
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize reference data", e);
+        }
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
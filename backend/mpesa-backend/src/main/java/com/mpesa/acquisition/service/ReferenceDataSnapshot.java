@@ -0,0 +1,60 @@
+package com.mpesa.acquisition.service;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, pre-serialized view of tbl_bank and tbl_branch.
+ *
+ * Branch lists are indexed by bank ID through a sorted long[] and parallel arrays,
+ * so a lookup is a binary search with no boxing.
+ */
+public final class ReferenceDataSnapshot {
+
+    private final byte[] banksJson;
+    private final String banksEtag;
+    private final long[] bankIds;
+    private final byte[][] branchesJson;
+    private final String[] branchesEtags;
+    private final int branchCount;
+
+    ReferenceDataSnapshot(byte[] banksJson, String banksEtag, long[] bankIds,
+                          byte[][] branchesJson, String[] branchesEtags, int branchCount) {
+        this.banksJson = banksJson;
+        this.banksEtag = banksEtag;
+        this.bankIds = bankIds;
+        this.branchesJson = branchesJson;
+        this.branchesEtags = branchesEtags;
+        this.branchCount = branchCount;
+    }
+
+    public byte[] getBanksJson() {
+        return banksJson;
+    }
+
+    public String getBanksEtag() {
+        return banksEtag;
+    }
+
+    public int getBankCount() {
+        return bankIds.length;
+    }
+
+    public int getBranchCount() {
+        return branchCount;
+    }
+
+    /**
+     * Position of the bank in this snapshot, or a negative value if it does not exist.
+     */
+    public int indexOfBank(long bankId) {
+        return Arrays.binarySearch(bankIds, bankId);
+    }
+
+    public byte[] getBranchesJson(int bankIndex) {
+        return branchesJson[bankIndex];
+    }
+
+    public String getBranchesEtag(int bankIndex) {
+        return branchesEtags[bankIndex];
+    }
+}
@@ -0,0 +1,117 @@
+package com.mpesa.acquisition.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered transaction IDs built from a millisecond timestamp, a node ID and a
+ * per-millisecond sequence (41 + 10 + 12 bits), rendered as "TX" followed by 19
+ * zero-padded digits so that string order matches generation order.
+ *
+ * No coordination is needed between nodes as long as every node has its own node ID.
+ * When the sequence for a millisecond is exhausted, or the clock steps back by less
+ * than the configured tolerance, the generator keeps counting on its own last
+ * timestamp instead of waiting, so IDs stay monotonic on each node.
+ */
+@Component
+public class SnowflakeTransactionIdGenerator implements TransactionIdGenerator {
+
+    // 2024-01-01T00:00:00Z, gives 41 bits of milliseconds until 2093
+    static final long EPOCH_MILLIS = 1704067200000L;
+
+    static final int NODE_ID_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_ID_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final String PREFIX = "TX";
+    private static final int DIGITS = 19;
+
+    private final long nodeId;
+    private final long maxClockRegressionMillis;
+
+    // Last issued (timestamp << SEQUENCE_BITS | sequence)
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeTransactionIdGenerator(@Value("${mpesa.transaction-id.node-id:0}") long nodeId,
+                                           @Value("${mpesa.transaction-id.max-clock-regression-ms:10000}") long maxClockRegressionMillis) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Transaction ID node ID must be between 0 and " + MAX_NODE_ID + ", got " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.maxClockRegressionMillis = maxClockRegressionMillis;
+    }
+
+    @Override
+    public String nextId() {
+        return format(nextLongId());
+    }
+
+    @Override
+    public Optional<Instant> issuedAt(String transactionId) {
+        if (transactionId == null || transactionId.length() != PREFIX.length() + DIGITS || !transactionId.startsWith(PREFIX)) {
+            return Optional.empty();
+        }
+        long id = 0;
+        for (int i = PREFIX.length(); i < transactionId.length(); i++) {
+            char c = transactionId.charAt(i);
+            if (c < '0' || c > '9') {
+                return Optional.empty();
+            }
+            id = id * 10 + (c - '0');
+        }
+        if (id < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(Instant.ofEpochMilli((id >>> (NODE_ID_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS));
+    }
+
+    long nextLongId() {
+        while (true) {
+            long now = currentTimeMillis() - EPOCH_MILLIS;
+            long last = state.get();
+            long lastTimestamp = last >>> SEQUENCE_BITS;
+            long next;
+
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                if (lastTimestamp - now > maxClockRegressionMillis) {
+                    throw new IllegalStateException("Clock moved backwards by " + (lastTimestamp - now)
+                        + "ms, refusing to generate transaction IDs");
+                }
+                // Same millisecond or a small clock step back: continue from the last timestamp,
+                // rolling over into the next millisecond once the sequence is used up
+                next = (last & SEQUENCE_MASK) == SEQUENCE_MASK
+                    ? (lastTimestamp + 1) << SEQUENCE_BITS
+                    : last + 1;
+            }
+
+            if (state.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                return (timestamp << (NODE_ID_BITS + SEQUENCE_BITS))
+                    | (nodeId << SEQUENCE_BITS)
+                    | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    static String format(long id) {
+        char[] chars = new char[PREFIX.length() + DIGITS];
+        chars[0] = 'T';
+        chars[1] = 'X';
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = (char) ('0' + (id % 10));
+            id /= 10;
+        }
+        return new String(chars);
+    }
+}
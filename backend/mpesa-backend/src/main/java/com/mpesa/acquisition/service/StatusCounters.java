@@ -0,0 +1,135 @@
+package com.mpesa.acquisition.service;
+
+import com.mpesa.acquisition.archive.TransactionArchive;
+import com.mpesa.acquisition.entity.Application;
+import com.mpesa.acquisition.entity.TransactionHistory;
+import com.mpesa.acquisition.repository.ApplicationRepository;
+import com.mpesa.acquisition.repository.TransactionHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Live row counts per application and transaction status, for the dashboard.
+ *
+ * Counters are seeded from the COUNT queries at startup and then moved by the write
+ * paths after each commit, so reads never touch the database. A scheduled job re-runs
+ * the COUNT queries and corrects any counter that drifted, for example after rows were
+ * written outside the application.
+ */
+@Component
+public class StatusCounters implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(StatusCounters.class);
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    @Autowired
+    private TransactionHistoryRepository transactionHistoryRepository;
+
+    // Present only when mpesa.archive.enabled=true
+    @Autowired(required = false)
+    private TransactionArchive transactionArchive;
+
+    private final Map<Application.ApplicationStatus, LongAdder> applications = new EnumMap<>(Application.ApplicationStatus.class);
+    private final Map<TransactionHistory.TransactionStatus, LongAdder> transactions = new EnumMap<>(TransactionHistory.TransactionStatus.class);
+
+    private volatile LocalDateTime lastReconciledAt;
+    private volatile long lastDrift;
+
+    public StatusCounters() {
+        for (Application.ApplicationStatus status : Application.ApplicationStatus.values()) {
+            applications.put(status, new LongAdder());
+        }
+        for (TransactionHistory.TransactionStatus status : TransactionHistory.TransactionStatus.values()) {
+            transactions.put(status, new LongAdder());
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        applications.forEach((status, counter) -> counter.add(applicationRepository.countByStatus(status)));
+        transactions.forEach((status, counter) -> counter.add(countTransactions(status)));
+        log.info("Status counters seeded: applications {}, transactions {}", sums(applications), sums(transactions));
+    }
+
+    public void recordApplication(Application.ApplicationStatus status) {
+        applications.get(status).increment();
+    }
+
+    public void recordTransactions(TransactionHistory.TransactionStatus status, long count) {
+        transactions.get(status).add(count);
+    }
+
+    public void recordReversal() {
+        transactions.get(TransactionHistory.TransactionStatus.SUCCESS).decrement();
+        transactions.get(TransactionHistory.TransactionStatus.REVERSED).increment();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("applications", sums(applications));
+        stats.put("transactions", sums(transactions));
+        stats.put("lastReconciledAt", lastReconciledAt);
+        stats.put("lastDrift", lastDrift);
+        return stats;
+    }
+
+    /**
+     * Compare every counter with its COUNT query and correct the ones that drifted.
+     */
+    @Scheduled(initialDelayString = "${mpesa.stats.reconcile-interval-ms:300000}",
+               fixedDelayString = "${mpesa.stats.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        long drift = reconcile("application", applications, applicationRepository::countByStatus)
+            + reconcile("transaction", transactions, this::countTransactions);
+        lastDrift = drift;
+        lastReconciledAt = LocalDateTime.now();
+    }
+
+    // Archived rows still count; their status can no longer change
+    private long countTransactions(TransactionHistory.TransactionStatus status) {
+        long count = transactionHistoryRepository.countByStatus(status);
+        return transactionArchive == null ? count : count + transactionArchive.countByStatus(status);
+    }
+
+    private <S extends Enum<S>> long reconcile(String kind, Map<S, LongAdder> counters, Function<S, Long> count) {
+        long totalDrift = 0;
+        for (Map.Entry<S, LongAdder> entry : counters.entrySet()) {
+            LongAdder counter = entry.getValue();
+            long before = counter.sum();
+            long actual = count.apply(entry.getKey());
+            long after = counter.sum();
+
+            // Writes that committed while the COUNT ran may be counted on either side of it
+            if (actual >= Math.min(before, after) && actual <= Math.max(before, after)) {
+                continue;
+            }
+
+            long drift = after - actual;
+            counter.add(-drift);
+            totalDrift += Math.abs(drift);
+            log.warn("Corrected {} {} counter by {}: counted {} but the database has {}",
+                kind, entry.getKey(), -drift, after, actual);
+        }
+        return totalDrift;
+    }
+
+    private static <S extends Enum<S>> Map<String, Long> sums(Map<S, LongAdder> counters) {
+        Map<String, Long> sums = new LinkedHashMap<>();
+        counters.forEach((status, counter) -> sums.put(status.name(), counter.sum()));
+        return sums;
+    }
+}
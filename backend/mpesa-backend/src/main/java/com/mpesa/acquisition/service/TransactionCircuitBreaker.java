@@ -0,0 +1,222 @@
+package com.mpesa.acquisition.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker around the database calls of the payment path: transaction history
+ * reads and writes, eligibility lookups that miss AccountEligibilityCache, and
+ * Idempotency-Key claims.
+ *
+ * CLOSED: calls go through, and the outcome of the last window-size calls is kept. Once
+ * at least minimum-calls were made and failure-rate-threshold percent of them failed
+ * with a database error, the breaker opens.
+ * OPEN: calls fail at once with CircuitBreakerOpenException, so request threads do not
+ * queue up on a failing database. After open-duration-ms the breaker goes half-open.
+ * HALF_OPEN: up to half-open-calls trial calls go through. If all of them succeed the
+ * breaker closes, and if one fails it opens again.
+ *
+ * Only database failures count: errors such as constraint violations show that the
+ * database is answering.
+ */
+@Component
+public class TransactionCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private final boolean[] window;
+    private int windowNext;
+    private int windowCalls;
+    private int windowFailures;
+    private long openedAtNanos;
+    private int halfOpenPermitted;
+    private int halfOpenSucceeded;
+    private LocalDateTime lastTransitionAt;
+
+    private final Counter successfulCalls;
+    private final Counter failedCalls;
+    private final Counter rejectedCalls;
+
+    public TransactionCircuitBreaker(MeterRegistry registry,
+                                     @Value("${mpesa.circuit-breaker.window-size:20}") int windowSize,
+                                     @Value("${mpesa.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                                     @Value("${mpesa.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+                                     @Value("${mpesa.circuit-breaker.open-duration-ms:10000}") long openDurationMillis,
+                                     @Value("${mpesa.circuit-breaker.half-open-calls:3}") int halfOpenCalls) {
+        if (minimumCalls < 1 || minimumCalls > windowSize) {
+            throw new IllegalArgumentException("mpesa.circuit-breaker.minimum-calls must be between 1 and the window size");
+        }
+        this.window = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDurationMillis * 1_000_000L;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+
+        for (State gaugeState : State.values()) {
+            Gauge.builder("mpesa.circuit.breaker.state", this, breaker -> breaker.getState() == gaugeState ? 1 : 0)
+                .description("1 for the transaction circuit breaker's current state")
+                .tag("state", gaugeState.name())
+                .register(registry);
+        }
+        this.successfulCalls = callCounter(registry, "success");
+        this.failedCalls = callCounter(registry, "failure");
+        this.rejectedCalls = callCounter(registry, "rejected");
+    }
+
+    /**
+     * Run the action if the breaker allows it and record whether the database failed.
+     */
+    public <T> T call(Supplier<T> action) {
+        acquirePermission();
+        try {
+            T result = action.get();
+            onComplete(false);
+            return result;
+        } catch (RuntimeException e) {
+            onComplete(isDatabaseFailure(e));
+            throw e;
+        }
+    }
+
+    public void run(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openDurationNanos) {
+            transition(State.HALF_OPEN);
+        }
+        return state;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", getState().name());
+        stats.put("windowCalls", windowCalls);
+        stats.put("windowFailures", windowFailures);
+        stats.put("lastTransitionAt", lastTransitionAt);
+        return stats;
+    }
+
+    /**
+     * Whether the exception, or one of its causes, means the database could not be reached
+     * or did not answer in time.
+     */
+    public static boolean isDatabaseFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataAccessResourceFailureException
+                    || cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException
+                    || cause instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void acquirePermission() {
+        State current = getState();
+        if (current == State.CLOSED) {
+            return;
+        }
+        if (current == State.HALF_OPEN && halfOpenPermitted < halfOpenCalls) {
+            halfOpenPermitted++;
+            return;
+        }
+        rejectedCalls.increment();
+        throw new CircuitBreakerOpenException("Transaction store circuit breaker is " + current);
+    }
+
+    private synchronized void onComplete(boolean failed) {
+        (failed ? failedCalls : successfulCalls).increment();
+
+        if (state == State.HALF_OPEN) {
+            if (failed) {
+                transition(State.OPEN);
+            } else if (++halfOpenSucceeded >= halfOpenCalls) {
+                transition(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // Started before the breaker opened
+            return;
+        }
+
+        if (windowCalls == window.length) {
+            if (window[windowNext]) {
+                windowFailures--;
+            }
+        } else {
+            windowCalls++;
+        }
+        window[windowNext] = failed;
+        if (failed) {
+            windowFailures++;
+        }
+        windowNext = (windowNext + 1) % window.length;
+
+        if (windowCalls >= minimumCalls && windowFailures * 100 >= failureRateThreshold * windowCalls) {
+            transition(State.OPEN);
+        }
+    }
+
+    private void transition(State next) {
+        if (next == State.OPEN) {
+            if (state == State.HALF_OPEN) {
+                log.warn("Transaction circuit breaker reopened after a failed trial call");
+            } else {
+                log.warn("Transaction circuit breaker opened after {} of {} calls failed", windowFailures, windowCalls);
+            }
+            openedAtNanos = System.nanoTime();
+        } else {
+            log.info("Transaction circuit breaker is {}", next);
+        }
+        state = next;
+        halfOpenPermitted = 0;
+        halfOpenSucceeded = 0;
+        windowCalls = 0;
+        windowFailures = 0;
+        windowNext = 0;
+        lastTransitionAt = LocalDateTime.now();
+    }
+
+    private static Counter callCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("mpesa.circuit.breaker.calls")
+            .description("Calls through the transaction circuit breaker, by outcome")
+            .tag("outcome", outcome)
+            .register(registry);
+    }
+}
@@ -0,0 +1,162 @@
+package com.mpesa.acquisition.service;
+
+import com.mpesa.acquisition.repository.TransactionIdRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Creates and retires the monthly partitions of tbl_transaction_history.
+ *
+ * Partitions are named tbl_transaction_history_pYYYY_MM and cover one calendar month of
+ * created_at. Future months are created ahead of time, on startup before the web server
+ * accepts requests and then daily. Months older than the retention period are detached
+ * with DETACH PARTITION CONCURRENTLY, so writers to other months are not blocked, and
+ * then dropped. Dropping a partition replaces deleting its rows, so there is no index
+ * bloat or vacuum work left behind; only the month's tbl_transaction_id rows are deleted.
+ * Requires Postgres 14 or later.
+ *
+ * There is no default partition, so inserts for a month without a partition fail. The
+ * mpesa.transaction.history.partitions.months.ahead gauge counts the months after the
+ * current one that have a partition; alert when it drops below 1.
+ */
+@Component
+public class TransactionHistoryPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionHistoryPartitionManager.class);
+
+    public static final String TABLE = "tbl_transaction_history";
+
+    private static final Pattern PARTITION_NAME = Pattern.compile(TABLE + "_p(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("'p'yyyy_MM");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionIdRepository transactionIdRepository;
+
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    // Newest month with a partition as of the last run; null before the first
+    private volatile YearMonth coveredUntil;
+
+    public TransactionHistoryPartitionManager(MeterRegistry registry,
+                                              @Value("${mpesa.transaction-history.partitions.months-ahead:3}") int monthsAhead,
+                                              @Value("${mpesa.transaction-history.partitions.retention-months:24}") int retentionMonths) {
+        if (monthsAhead < 1) {
+            throw new IllegalArgumentException("Partitions must be created at least one month ahead, got " + monthsAhead);
+        }
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+
+        Gauge.builder("mpesa.transaction.history.partitions.months.ahead", this, TransactionHistoryPartitionManager::getMonthsCovered)
+            .description("Months after the current one with a transaction history partition, -1 before the first check")
+            .register(registry);
+    }
+
+    @PostConstruct
+    public void createUpcomingPartitions() {
+        YearMonth current = YearMonth.now();
+        // The previous month too, for journal records written just before midnight at month end
+        for (YearMonth month = current.minusMonths(1); !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            createPartition(month);
+        }
+        coveredUntil = listPartitions().stream().map(Partition::month).max(Comparator.naturalOrder()).orElse(null);
+    }
+
+    @Scheduled(cron = "${mpesa.transaction-history.partitions.maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        try {
+            createUpcomingPartitions();
+        } catch (RuntimeException e) {
+            log.error("Could not create upcoming transaction history partitions, {} months ahead are covered",
+                getMonthsCovered(), e);
+        }
+        if (retentionMonths > 0) {
+            dropExpiredPartitions(YearMonth.now().minusMonths(retentionMonths));
+        }
+    }
+
+    /**
+     * Detach and drop every partition for a month before the given one.
+     */
+    public List<YearMonth> dropExpiredPartitions(YearMonth oldestRetained) {
+        List<YearMonth> dropped = new ArrayList<>();
+        for (Partition partition : listPartitions()) {
+            if (!partition.month().isBefore(oldestRetained)) {
+                continue;
+            }
+
+            if (partition.detachPending()) {
+                // An earlier concurrent detach was interrupted
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition.name() + " FINALIZE");
+            } else {
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition.name() + " CONCURRENTLY");
+            }
+            jdbcTemplate.execute("DROP TABLE " + partition.name());
+            transactionIdRepository.deleteCreatedIn(partition.month());
+            dropped.add(partition.month());
+            log.info("Dropped expired transaction history partition {}", partition.name());
+        }
+        return dropped;
+    }
+
+    public List<Partition> listPartitions() {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+            "SELECT c.relname AS name, i.inhdetachpending AS detach_pending FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = '" + TABLE + "'::regclass ORDER BY c.relname");
+
+        List<Partition> partitions = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            Matcher matcher = PARTITION_NAME.matcher((String) row.get("name"));
+            if (matcher.matches()) {
+                YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+                partitions.add(new Partition((String) row.get("name"), month, Boolean.TRUE.equals(row.get("detach_pending"))));
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Months after the current one that have a partition, as of the last run. Negative once
+     * the current month has none; -1 also before the first run.
+     */
+    public long getMonthsCovered() {
+        YearMonth covered = coveredUntil;
+        return covered == null ? -1 : ChronoUnit.MONTHS.between(YearMonth.now(), covered);
+    }
+
+    static String partitionName(YearMonth month) {
+        return TABLE + "_" + month.format(SUFFIX);
+    }
+
+    private void createPartition(YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF " + TABLE +
+            " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+    }
+
+    public record Partition(String name, YearMonth month, boolean detachPending) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.mpesa.acquisition.service;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Generates the transaction IDs stored in tbl_transaction_history.
+ *
+ * Implementations must be thread-safe and return IDs that are unique across all nodes.
+ */
+public interface TransactionIdGenerator {
+
+    String nextId();
+
+    /**
+     * When the ID was issued, if its format records that. Lookups by transaction ID use it
+     * to narrow the created_at range so Postgres only scans the matching partitions.
+     */
+    default Optional<Instant> issuedAt(String transactionId) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,161 @@
+package com.mpesa.acquisition.service;
+
+import com.mpesa.acquisition.archive.TransactionArchive;
+import com.mpesa.acquisition.entity.TransactionHistory;
+import com.mpesa.acquisition.repository.AccountSummaryRepository;
+import com.mpesa.acquisition.repository.TransactionHistoryRepository;
+import com.mpesa.acquisition.repository.TransactionIdRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Writes transaction history, its tbl_transaction_id row and the matching account summary
+ * change in one database transaction.
+ *
+ * Lookups by transaction ID take the row's created_at from tbl_transaction_id, so Postgres
+ * scans only the monthly partition that holds it. When the transaction archive is enabled,
+ * reads fall through to it for rows that are no longer in Postgres, limited to a created_at
+ * window around the time encoded in the ID.
+ */
+@Service
+public class TransactionLedgerService {
+
+    // created_at is set shortly after the ID is issued; the margin also covers clock steps
+    // the ID generator tolerates and time zone differences
+    private static final Duration ISSUE_TIME_MARGIN = Duration.ofDays(1);
+
+    // Used when the ID does not encode a time: matches every row
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    @Autowired
+    private TransactionHistoryRepository transactionHistoryRepository;
+
+    @Autowired
+    private AccountSummaryRepository accountSummaryRepository;
+
+    @Autowired
+    private TransactionIdRepository transactionIdRepository;
+
+    @Autowired
+    private TransactionIdGenerator transactionIdGenerator;
+
+    // Present only when mpesa.archive.enabled=true
+    @Autowired(required = false)
+    private TransactionArchive transactionArchive;
+
+    /**
+     * Throws DuplicateKeyException, and stores nothing, if the transaction ID is already stored.
+     */
+    @Transactional
+    public TransactionHistory record(TransactionHistory transaction) {
+        return record(transaction, saved -> {});
+    }
+
+    /**
+     * Like {@link #record(TransactionHistory)}, and also runs afterSave with the saved row in
+     * the same database transaction. If afterSave throws, nothing is stored.
+     */
+    @Transactional
+    public TransactionHistory record(TransactionHistory transaction, Consumer<TransactionHistory> afterSave) {
+        TransactionHistory saved = transactionHistoryRepository.save(transaction);
+        transactionIdRepository.insert(saved.getTransactionId(), saved.getCreatedAt());
+        if (saved.getStatus() == TransactionHistory.TransactionStatus.SUCCESS) {
+            accountSummaryRepository.applyDelta(saved.getAccountNumber(), 1, saved.getAmount(),
+                0, BigDecimal.ZERO, saved.getCreatedAt());
+        }
+        afterSave.accept(saved);
+        return saved;
+    }
+
+    /**
+     * Reverse a SUCCESS transaction and move its amount to the account's reversed totals.
+     * Empty when no SUCCESS transaction matched.
+     */
+    @Transactional
+    public Optional<TransactionHistory> reverse(String transactionId, String reason) {
+        Optional<TransactionHistory> reversed = transactionHistoryRepository.reverseIfSuccessful(transactionId, reason);
+        reversed.ifPresent(transaction -> accountSummaryRepository.applyDelta(transaction.getAccountNumber(),
+            -1, transaction.getAmount().negate(), 1, transaction.getAmount(), transaction.getCreatedAt()));
+        return reversed;
+    }
+
+    public Optional<TransactionHistory> findByTransactionId(String transactionId) {
+        Optional<TransactionHistory> transaction = transactionHistoryRepository.findByTransactionId(transactionId);
+        if (transaction.isEmpty() && transactionArchive != null) {
+            CreatedAtWindow window = createdAtWindow(transactionId);
+            return transactionArchive.findByTransactionId(transactionId, window.from(), window.to());
+        }
+        return transaction;
+    }
+
+    public Optional<TransactionHistory.TransactionStatus> findStatus(String transactionId) {
+        Optional<TransactionHistory.TransactionStatus> status = transactionHistoryRepository.findStatusByTransactionId(transactionId);
+        if (status.isEmpty() && transactionArchive != null) {
+            CreatedAtWindow window = createdAtWindow(transactionId);
+            return transactionArchive.findByTransactionId(transactionId, window.from(), window.to())
+                .map(TransactionHistory::getStatus);
+        }
+        return status;
+    }
+
+    /**
+     * Whether the transaction was moved to the archive, where it can no longer change.
+     */
+    public boolean isArchived(String transactionId) {
+        if (transactionArchive == null) {
+            return false;
+        }
+        CreatedAtWindow window = createdAtWindow(transactionId);
+        return transactionArchive.findByTransactionId(transactionId, window.from(), window.to()).isPresent();
+    }
+
+    /**
+     * Up to limit transactions for the account, newest first, after the cursor or from
+     * the newest when it is null. Archived months follow the rows still in Postgres.
+     */
+    @Transactional(readOnly = true)
+    public List<TransactionHistory> findPage(String accountNumber, TransactionHistoryCursor after, int limit) {
+        List<TransactionHistory> page = after == null
+            ? transactionHistoryRepository.findFirstPageByAccountNumber(accountNumber, limit)
+            : transactionHistoryRepository.findPageByAccountNumberBefore(accountNumber, after.getCreatedAt(), after.getId(), limit);
+        if (page.size() >= limit || transactionArchive == null) {
+            return page;
+        }
+
+        // Every archived row is older than every row left in Postgres
+        List<TransactionHistory> combined = new ArrayList<>(page);
+        if (!page.isEmpty()) {
+            TransactionHistory last = page.get(page.size() - 1);
+            after = new TransactionHistoryCursor(last.getCreatedAt(), last.getId());
+        }
+        int remaining = limit - page.size();
+        combined.addAll(after == null
+            ? transactionArchive.findPage(accountNumber, null, 0, remaining)
+            : transactionArchive.findPage(accountNumber, after.getCreatedAt(), after.getId(), remaining));
+        return combined;
+    }
+
+    private CreatedAtWindow createdAtWindow(String transactionId) {
+        Optional<Instant> issuedAt = transactionIdGenerator.issuedAt(transactionId);
+        if (issuedAt.isEmpty()) {
+            return new CreatedAtWindow(EARLIEST, LATEST);
+        }
+        LocalDateTime issued = LocalDateTime.ofInstant(issuedAt.get(), ZoneId.systemDefault());
+        return new CreatedAtWindow(issued.minus(ISSUE_TIME_MARGIN), issued.plus(ISSUE_TIME_MARGIN));
+    }
+
+    private record CreatedAtWindow(LocalDateTime from, LocalDateTime to) {
+    }
+}
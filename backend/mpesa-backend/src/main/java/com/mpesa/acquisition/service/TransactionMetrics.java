@@ -0,0 +1,44 @@
+package com.mpesa.acquisition.service;
+
+import com.mpesa.acquisition.entity.TransactionHistory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Transaction counters exposed on /actuator/prometheus.
+ */
+@Component
+public class TransactionMetrics {
+
+    private final Map<TransactionHistory.TransactionStatus, Counter> transactionsByStatus =
+        new EnumMap<>(TransactionHistory.TransactionStatus.class);
+    private final Counter failureRecordingErrors;
+
+    public TransactionMetrics(MeterRegistry registry) {
+        for (TransactionHistory.TransactionStatus status : TransactionHistory.TransactionStatus.values()) {
+            transactionsByStatus.put(status, Counter.builder("mpesa.transactions")
+                .description("Transactions recorded, by status")
+                .tag("status", status.name())
+                .register(registry));
+        }
+        this.failureRecordingErrors = Counter.builder("mpesa.transactions.failure.recording.errors")
+            .description("Failed transactions that could not be written to the transaction history")
+            .register(registry);
+    }
+
+    public void recordTransaction(TransactionHistory.TransactionStatus status) {
+        transactionsByStatus.get(status).increment();
+    }
+
+    public void recordTransactions(TransactionHistory.TransactionStatus status, int count) {
+        transactionsByStatus.get(status).increment(count);
+    }
+
+    public void recordFailureRecordingError() {
+        failureRecordingErrors.increment();
+    }
+}
@@ -0,0 +1,111 @@
+-- Applied on every startup (spring.sql.init.mode=always), so every statement must be idempotent.
+-- Monthly partitions of tbl_transaction_history are created by TransactionHistoryPartitionManager.
+
+CREATE TABLE IF NOT EXISTS tbl_bank (
+    id bigserial NOT NULL,
+    value varchar(255) NOT NULL UNIQUE,
+    created_at timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS tbl_branch (
+    id bigserial NOT NULL,
+    bank_id bigint NOT NULL REFERENCES tbl_bank (id),
+    value varchar(255) NOT NULL,
+    created_at timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS tbl_application (
+    id bigserial NOT NULL,
+    bank_name varchar(255) NOT NULL,
+    branch_name varchar(255) NOT NULL,
+    account_name varchar(255) NOT NULL,
+    account_number varchar(255) NOT NULL UNIQUE,
+    proof_of_bank_account varchar(255),
+    status varchar(255) NOT NULL CHECK (status IN ('DRAFT', 'SUBMITTED')),
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    PRIMARY KEY (id)
+);
+
+-- Partitioned by month on created_at. Unique keys must include the partition key, so
+-- transaction_id is only unique per created_at here; tbl_transaction_id makes it unique.
+CREATE TABLE IF NOT EXISTS tbl_transaction_history (
+    id bigserial NOT NULL,
+    transaction_id varchar(255) NOT NULL,
+    account_number varchar(255) NOT NULL,
+    amount numeric(15,2) NOT NULL,
+    narration text,
+    status varchar(255) NOT NULL CHECK (status IN ('SUCCESS', 'FAILED', 'REVERSED')),
+    created_at timestamp(6) NOT NULL DEFAULT LOCALTIMESTAMP,
+    PRIMARY KEY (id, created_at),
+    UNIQUE (transaction_id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- IF NOT EXISTS keeps a tbl_transaction_history left by the old unpartitioned schema, so stop
+-- startup here instead. The message is carried by the cast error; it depends on relname so
+-- the planner cannot fold it when the table is partitioned.
+SELECT CAST(relname || ' exists but is not partitioned; migrate it to the partitioned table before starting' AS integer)
+FROM pg_class WHERE oid = to_regclass('tbl_transaction_history') AND relkind <> 'p';
+
+-- There is no DEFAULT partition: it would rule out DETACH PARTITION CONCURRENTLY. Inserts for
+-- a month without a partition fail, so TransactionHistoryPartitionManager reports how many
+-- months ahead are covered.
+
+CREATE INDEX IF NOT EXISTS idx_transaction_history_account_created_id
+    ON tbl_transaction_history (account_number, created_at DESC, id DESC);
+
+-- Not partitioned, so transaction_id is unique across all months. Every write to
+-- tbl_transaction_history inserts here in the same transaction, and lookups by ID read
+-- created_at from here to find the partition. Rows are deleted with the archive month or
+-- partition that held the transaction.
+CREATE TABLE IF NOT EXISTS tbl_transaction_id (
+    transaction_id varchar(255) NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    PRIMARY KEY (transaction_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_transaction_id_created_at ON tbl_transaction_id (created_at);
+
+-- Fills tbl_transaction_id for history written before it existed; does nothing once it has rows
+INSERT INTO tbl_transaction_id (transaction_id, created_at)
+SELECT transaction_id, created_at FROM tbl_transaction_history
+WHERE NOT EXISTS (SELECT 1 FROM tbl_transaction_id)
+ON CONFLICT (transaction_id) DO NOTHING;
+
+CREATE TABLE IF NOT EXISTS tbl_account_summary (
+    account_number varchar(255) NOT NULL,
+    successful_count bigint NOT NULL,
+    successful_total numeric(19,2) NOT NULL,
+    reversed_count bigint NOT NULL,
+    reversed_total numeric(19,2) NOT NULL,
+    last_transaction_at timestamp(6),
+    PRIMARY KEY (account_number)
+);
+
+CREATE TABLE IF NOT EXISTS tbl_idempotency_key (
+    id bigserial NOT NULL,
+    idempotency_key varchar(255) NOT NULL UNIQUE,
+    response_status integer,
+    response_body text,
+    transaction_id varchar(255),
+    created_at timestamp(6) NOT NULL,
+    claimed_until timestamp(6),
+    expires_at timestamp(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- Added after the table was first released
+ALTER TABLE tbl_idempotency_key ADD COLUMN IF NOT EXISTS transaction_id varchar(255);
+ALTER TABLE tbl_idempotency_key ADD COLUMN IF NOT EXISTS claimed_until timestamp(6);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_key_expires_at ON tbl_idempotency_key (expires_at);
+
+-- Hibernate takes ids from these sequences in blocks of INCREMENT BY, which lets it batch
+-- inserts. The entities follow the increment set here (see increment_size_mismatch_strategy).
+-- Inserts that use the column default still take one value each.
+ALTER SEQUENCE tbl_bank_id_seq INCREMENT BY 50;
+ALTER SEQUENCE tbl_branch_id_seq INCREMENT BY 50;
+ALTER SEQUENCE tbl_application_id_seq INCREMENT BY 50;
+ALTER SEQUENCE tbl_transaction_history_id_seq INCREMENT BY 50;
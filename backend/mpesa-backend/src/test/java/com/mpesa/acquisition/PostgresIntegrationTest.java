@@ -0,0 +1,81 @@
+package com.mpesa.acquisition;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Base class for tests that run the application against Postgres, with the test profile.
+ *
+ * The database is the one at -Dmpesa.test.jdbc-url (with mpesa.test.username and
+ * mpesa.test.password, both postgres by default) or else an embedded Postgres started once
+ * per JVM. Tests are skipped when neither is available; embedded Postgres refuses to run as
+ * root. The database is shared, so tests use account numbers nobody else uses.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public abstract class PostgresIntegrationTest {
+
+    private static Database database;
+    private static String unavailableReason;
+
+    @BeforeAll
+    static void requireDatabase() {
+        assumeTrue(database() != null, () -> "No test database: " + unavailableReason);
+    }
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> database().jdbcUrl());
+        registry.add("spring.datasource.username", () -> database().username());
+        registry.add("spring.datasource.password", () -> database().password());
+    }
+
+    /**
+     * A string unique to this run, for account numbers and keys in the shared database.
+     */
+    protected static String unique(String prefix) {
+        return prefix + "-" + Long.toString(System.nanoTime(), 36);
+    }
+
+    private static synchronized Database database() {
+        if (database != null || unavailableReason != null) {
+            return database;
+        }
+
+        String jdbcUrl = System.getProperty("mpesa.test.jdbc-url");
+        String username = System.getProperty("mpesa.test.username", "postgres");
+        String password = System.getProperty("mpesa.test.password", "postgres");
+        if (jdbcUrl == null) {
+            try {
+                EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        postgres.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+                jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+            } catch (IOException | RuntimeException e) {
+                unavailableReason = "set -Dmpesa.test.jdbc-url or run where embedded Postgres can start (" + e + ")";
+                return null;
+            }
+        }
+        jdbcUrl += (jdbcUrl.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true";
+
+        database = new Database(jdbcUrl, username, password);
+        return database;
+    }
+
+    private record Database(String jdbcUrl, String username, String password) {
+    }
+}
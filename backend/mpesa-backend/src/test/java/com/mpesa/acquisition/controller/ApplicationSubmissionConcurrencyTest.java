@@ -0,0 +1,95 @@
+package com.mpesa.acquisition.controller;
+
+import com.mpesa.acquisition.PostgresIntegrationTest;
+import com.mpesa.acquisition.datasource.SqlStats;
+import com.mpesa.acquisition.dto.ApplicationSubmissionRequest;
+import com.mpesa.acquisition.dto.ErrorResponse;
+import com.mpesa.acquisition.entity.Branch;
+import com.mpesa.acquisition.repository.BranchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ApplicationSubmissionConcurrencyTest extends PostgresIntegrationTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private ApplicationController applicationController;
+
+    @Autowired
+    private BranchRepository branchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Branch branch;
+
+    @BeforeEach
+    void findBranch() {
+        // DataInitializer seeds the banks and branches
+        branch = branchRepository.findAll().get(0);
+    }
+
+    @Test
+    void concurrentSubmissionsOfOneAccountNumberCreateOneApplication() throws Exception {
+        String accountNumber = unique("submit");
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<ResponseEntity<?>> responses = new ArrayList<>();
+        try {
+            List<Future<ResponseEntity<?>>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS * 4; i++) {
+                Callable<ResponseEntity<?>> submission = () -> {
+                    start.await();
+                    return applicationController.submitApplication(request(accountNumber));
+                };
+                results.add(executor.submit(submission));
+            }
+            start.countDown();
+            for (Future<ResponseEntity<?>> result : results) {
+                responses.add(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(responses).filteredOn(response -> response.getStatusCode() == HttpStatus.OK).hasSize(1);
+        assertThat(responses).filteredOn(response -> response.getStatusCode() != HttpStatus.OK)
+            .hasSize(responses.size() - 1)
+            .allSatisfy(response -> {
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+                assertThat(response.getBody()).isEqualTo(ErrorResponse.failed("Account number already exists"));
+            });
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM tbl_application WHERE account_number = ?",
+            Long.class, accountNumber)).isEqualTo(1);
+    }
+
+    @Test
+    void submitApplicationIsOneStatement() {
+        String accountNumber = unique("submit");
+
+        SqlStats.assertStatementsAtMost(1, () ->
+            assertThat(applicationController.submitApplication(request(accountNumber)).getStatusCode()).isEqualTo(HttpStatus.OK));
+        SqlStats.assertStatementsAtMost(1, () ->
+            assertThat(applicationController.submitApplication(request(accountNumber)).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    private ApplicationSubmissionRequest request(String accountNumber) {
+        return new ApplicationSubmissionRequest(branch.getBankId(), branch.getId(), "Bank", "Branch", "Test Account",
+            accountNumber, null, "SUBMITTED");
+    }
+}
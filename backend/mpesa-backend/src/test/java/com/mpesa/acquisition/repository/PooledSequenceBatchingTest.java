@@ -0,0 +1,64 @@
+package com.mpesa.acquisition.repository;
+
+import com.mpesa.acquisition.PostgresIntegrationTest;
+import com.mpesa.acquisition.datasource.SqlStats;
+import com.mpesa.acquisition.entity.Application;
+import com.mpesa.acquisition.entity.TransactionHistory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * saveAll sends inserts in JDBC batches of hibernate.jdbc.batch_size (50) and takes ids 50 at
+ * a time from the sequence, so n rows cost about n / 25 statements instead of n.
+ */
+class PooledSequenceBatchingTest extends PostgresIntegrationTest {
+
+    private static final int ROWS = 500;
+
+    // One executeBatch and at most one nextval per 50 rows, plus one for a block left over
+    private static final int MAX_STATEMENTS = 2 * ROWS / 50 + 1;
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    @Autowired
+    private TransactionHistoryRepository transactionHistoryRepository;
+
+    @Test
+    void applicationsAreInsertedInBatches() {
+        String accountPrefix = unique("batch");
+        List<Application> applications = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Application application = new Application();
+            application.setBankName("Bank");
+            application.setBranchName("Branch");
+            application.setAccountName("Test Account");
+            application.setAccountNumber(accountPrefix + "-" + i);
+            application.setStatus(Application.ApplicationStatus.SUBMITTED);
+            applications.add(application);
+        }
+
+        SqlStats.assertStatementsAtMost(MAX_STATEMENTS, () -> applicationRepository.saveAll(applications));
+
+        assertThat(applications).extracting(Application::getId).doesNotContainNull().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void transactionHistoryIsInsertedInBatches() {
+        String accountNumber = unique("batch");
+        List<TransactionHistory> transactions = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            transactions.add(new TransactionHistory(unique("batch-txn") + "-" + i, accountNumber, BigDecimal.ONE, "Payment"));
+        }
+
+        SqlStats.assertStatementsAtMost(MAX_STATEMENTS, () -> transactionHistoryRepository.saveAll(transactions));
+
+        assertThat(transactions).extracting(TransactionHistory::getId).doesNotContainNull().doesNotHaveDuplicates();
+    }
+}
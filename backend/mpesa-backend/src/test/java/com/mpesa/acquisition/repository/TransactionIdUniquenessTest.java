@@ -0,0 +1,80 @@
+package com.mpesa.acquisition.repository;
+
+import com.mpesa.acquisition.PostgresIntegrationTest;
+import com.mpesa.acquisition.entity.TransactionHistory;
+import com.mpesa.acquisition.service.TransactionIdGenerator;
+import com.mpesa.acquisition.service.TransactionLedgerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * tbl_transaction_history is only unique per (transaction_id, created_at); tbl_transaction_id
+ * keeps an ID from being stored twice with different created_at values.
+ */
+class TransactionIdUniquenessTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private TransactionHistoryBatchWriter transactionHistoryBatchWriter;
+
+    @Autowired
+    private TransactionLedgerService transactionLedgerService;
+
+    @Autowired
+    private AccountSummaryRepository accountSummaryRepository;
+
+    @Autowired
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void replayWithAnotherCreatedAtIsSkipped() {
+        String accountNumber = unique("replay");
+        TransactionHistory original = payment(transactionIdGenerator.nextId(), accountNumber);
+        transactionHistoryBatchWriter.insertAll(List.of(original));
+
+        TransactionHistory replayed = payment(original.getTransactionId(), accountNumber);
+        replayed.setCreatedAt(original.getCreatedAt().minusSeconds(5));
+        TransactionHistory duplicateInBatch = payment(transactionIdGenerator.nextId(), accountNumber);
+        assertThat(transactionHistoryBatchWriter.insertIgnoringDuplicates(List.of(replayed, duplicateInBatch, duplicateInBatch)))
+            .containsExactlyEntriesOf(Map.of(TransactionHistory.TransactionStatus.SUCCESS, 1L));
+
+        assertThat(rowsWithId(original.getTransactionId())).isEqualTo(1);
+        assertThat(rowsWithId(duplicateInBatch.getTransactionId())).isEqualTo(1);
+        assertThat(accountSummaryRepository.findById(accountNumber).orElseThrow().getSuccessfulCount()).isEqualTo(2);
+        assertThat(transactionLedgerService.findByTransactionId(original.getTransactionId())).isPresent();
+    }
+
+    @Test
+    void recordingAStoredIdAgainFails() {
+        String accountNumber = unique("record");
+        TransactionHistory original = transactionLedgerService.record(payment(transactionIdGenerator.nextId(), accountNumber));
+
+        assertThatThrownBy(() -> transactionLedgerService.record(payment(original.getTransactionId(), accountNumber)))
+            .isInstanceOf(DuplicateKeyException.class);
+        assertThatThrownBy(() -> transactionHistoryBatchWriter.insertAll(List.of(payment(original.getTransactionId(), accountNumber))))
+            .isInstanceOf(DuplicateKeyException.class);
+
+        assertThat(rowsWithId(original.getTransactionId())).isEqualTo(1);
+        assertThat(accountSummaryRepository.findById(accountNumber).orElseThrow().getSuccessfulCount()).isEqualTo(1);
+    }
+
+    private static TransactionHistory payment(String transactionId, String accountNumber) {
+        return new TransactionHistory(transactionId, accountNumber, BigDecimal.TEN, "Payment");
+    }
+
+    private long rowsWithId(String transactionId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM tbl_transaction_history WHERE transaction_id = ?",
+            Long.class, transactionId);
+    }
+}
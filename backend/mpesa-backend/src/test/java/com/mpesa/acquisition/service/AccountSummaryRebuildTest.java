@@ -0,0 +1,69 @@
+package com.mpesa.acquisition.service;
+
+import com.mpesa.acquisition.PostgresIntegrationTest;
+import com.mpesa.acquisition.entity.AccountSummary;
+import com.mpesa.acquisition.entity.TransactionHistory;
+import com.mpesa.acquisition.repository.AccountSummaryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The rebuild runs in ranges of two history rows here, so accounts span several transactions.
+ */
+@TestPropertySource(properties = "mpesa.account-summary.rebuild.batch-rows=2")
+class AccountSummaryRebuildTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private AccountSummaryRebuilder accountSummaryRebuilder;
+
+    @Autowired
+    private TransactionLedgerService transactionLedgerService;
+
+    @Autowired
+    private AccountSummaryRepository accountSummaryRepository;
+
+    @Autowired
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void rebuildCorrectsDriftedMissingAndStaleSummaries() {
+        String drifted = unique("rebuild-drifted");
+        String missing = unique("rebuild-missing");
+        String stale = unique("rebuild-stale");
+        pay(drifted, "10.00");
+        pay(drifted, "5.50");
+        pay(missing, "7.00");
+
+        jdbcTemplate.update("UPDATE tbl_account_summary SET successful_count = 99, successful_total = 1 WHERE account_number = ?", drifted);
+        jdbcTemplate.update("DELETE FROM tbl_account_summary WHERE account_number = ?", missing);
+        jdbcTemplate.update("INSERT INTO tbl_account_summary (" + AccountSummaryRepository.COLUMNS + ") VALUES (?, 3, 30, 0, 0, NULL)", stale);
+
+        assertThat(accountSummaryRebuilder.rebuild()).isGreaterThanOrEqualTo(3);
+
+        AccountSummary driftedSummary = accountSummaryRepository.findById(drifted).orElseThrow();
+        assertThat(driftedSummary.getSuccessfulCount()).isEqualTo(2);
+        assertThat(driftedSummary.getSuccessfulTotal()).isEqualByComparingTo("15.50");
+        AccountSummary missingSummary = accountSummaryRepository.findById(missing).orElseThrow();
+        assertThat(missingSummary.getSuccessfulCount()).isEqualTo(1);
+        assertThat(missingSummary.getSuccessfulTotal()).isEqualByComparingTo("7.00");
+        assertThat(accountSummaryRepository.findById(stale)).isEmpty();
+
+        // A second run finds nothing left to correct for these accounts
+        accountSummaryRebuilder.rebuild();
+        assertThat(accountSummaryRepository.findById(drifted).orElseThrow().getSuccessfulCount()).isEqualTo(2);
+    }
+
+    private void pay(String accountNumber, String amount) {
+        transactionLedgerService.record(new TransactionHistory(transactionIdGenerator.nextId(), accountNumber,
+            new BigDecimal(amount), "Payment"));
+    }
+}
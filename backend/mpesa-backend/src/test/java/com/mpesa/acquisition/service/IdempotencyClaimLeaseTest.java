@@ -0,0 +1,104 @@
+package com.mpesa.acquisition.service;
+
+import com.mpesa.acquisition.PostgresIntegrationTest;
+import com.mpesa.acquisition.dto.TransactionResponse;
+import com.mpesa.acquisition.entity.TransactionHistory;
+import com.mpesa.acquisition.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Idempotency keys whose first request never stored a response.
+ */
+class IdempotencyClaimLeaseTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private TransactionLedgerService transactionLedgerService;
+
+    @Autowired
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void lapsedClaimReplaysItsStoredPayment() {
+        String key = unique("lapsed-paid");
+        TransactionHistory paid = transactionLedgerService.record(
+            new TransactionHistory(transactionIdGenerator.nextId(), unique("lapsed-paid"), BigDecimal.TEN, "Payment"));
+        insertLapsedClaim(key, paid.getTransactionId());
+
+        AtomicInteger runs = new AtomicInteger();
+        ResponseEntity<?> response = idempotencyService.execute(key, transactionIdGenerator.nextId(), claim -> {
+            runs.incrementAndGet();
+            return ResponseEntity.ok().build();
+        });
+
+        assertThat(runs).hasValue(0);
+        assertThat(response.getHeaders().getFirst("Idempotent-Replayed")).isEqualTo("true");
+        assertThat(((TransactionResponse) response.getBody()).transactionId()).isEqualTo(paid.getTransactionId());
+        assertThat(idempotencyRecordRepository.findByIdempotencyKey(key).orElseThrow().getResponseStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void lapsedClaimWithoutPaymentIsTakenOver() {
+        String key = unique("lapsed-unpaid");
+        insertLapsedClaim(key, transactionIdGenerator.nextId());
+
+        String transactionId = transactionIdGenerator.nextId();
+        ResponseEntity<?> response = idempotencyService.execute(key, transactionId, claim -> {
+            TransactionHistory saved = transactionLedgerService.record(
+                new TransactionHistory(claim.getTransactionId(), unique("lapsed-unpaid"), BigDecimal.ONE, "Payment"),
+                stored -> claim.complete(ResponseEntity.ok(TransactionResponse.success(stored))));
+            return ResponseEntity.ok(TransactionResponse.success(saved));
+        });
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getHeaders().containsKey("Idempotent-Replayed")).isFalse();
+        assertThat(((TransactionResponse) response.getBody()).transactionId()).isEqualTo(transactionId);
+        assertThat(idempotencyRecordRepository.findByIdempotencyKey(key).orElseThrow().getTransactionId()).isEqualTo(transactionId);
+    }
+
+    @Test
+    void paymentRollsBackWhenItsClaimWasTakenOver() {
+        String key = unique("taken-over");
+        String accountNumber = unique("taken-over");
+
+        assertThatThrownBy(() -> idempotencyService.execute(key, transactionIdGenerator.nextId(), claim -> {
+            // Another request takes the key over while this payment is still running
+            jdbcTemplate.update("UPDATE tbl_idempotency_key SET created_at = created_at + interval '1 second' WHERE idempotency_key = ?", key);
+            transactionLedgerService.record(
+                new TransactionHistory(claim.getTransactionId(), accountNumber, BigDecimal.ONE, "Payment"),
+                stored -> claim.complete(ResponseEntity.ok(TransactionResponse.success(stored))));
+            return ResponseEntity.ok().build();
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM tbl_transaction_history WHERE account_number = ?",
+            Long.class, accountNumber)).isZero();
+        // The release only removes this request's own claim
+        assertThat(idempotencyRecordRepository.findByIdempotencyKey(key)).isPresent();
+    }
+
+    private void insertLapsedClaim(String key, String transactionId) {
+        LocalDateTime claimedAt = LocalDateTime.now().minusMinutes(5);
+        jdbcTemplate.update("INSERT INTO tbl_idempotency_key (idempotency_key, transaction_id, created_at, claimed_until, expires_at) " +
+            "VALUES (?, ?, ?, ?, ?)", key, transactionId, Timestamp.valueOf(claimedAt),
+            Timestamp.valueOf(claimedAt.plusMinutes(1)), Timestamp.valueOf(claimedAt.plusDays(1)));
+    }
+}
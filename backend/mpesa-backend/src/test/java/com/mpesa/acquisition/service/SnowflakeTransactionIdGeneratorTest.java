@@ -0,0 +1,146 @@
+package com.mpesa.acquisition.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeTransactionIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 200_000;
+
+    @Test
+    void idsFromManyThreadsAreUniqueAndIncreasingPerThread() throws Exception {
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(7, 10_000);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<String[]>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Callable<String[]> worker = () -> {
+                    String[] ids = new String[IDS_PER_THREAD];
+                    start.await();
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                };
+                results.add(executor.submit(worker));
+            }
+
+            long startedAt = System.nanoTime();
+            start.countDown();
+            String[] all = new String[THREADS * IDS_PER_THREAD];
+            int next = 0;
+            for (Future<String[]> result : results) {
+                String[] ids = result.get();
+                for (int i = 1; i < ids.length; i++) {
+                    assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+                }
+                System.arraycopy(ids, 0, all, next, ids.length);
+                next += ids.length;
+            }
+            long elapsedNanos = System.nanoTime() - startedAt;
+
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                assertThat(all[i]).isNotEqualTo(all[i - 1]);
+            }
+
+            double idsPerSecond = all.length / (elapsedNanos / 1e9);
+            // Far below what the generator does on one core; catches a lock or a sleep creeping in
+            assertThat(idsPerSecond).isGreaterThan(200_000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void nodesSharingAMillisecondDoNotCollide() {
+        SnowflakeTransactionIdGenerator first = new FixedClockGenerator(1, 1_800_000_000_000L);
+        SnowflakeTransactionIdGenerator second = new FixedClockGenerator(2, 1_800_000_000_000L);
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(first.nextId());
+            ids.add(second.nextId());
+        }
+        assertThat(ids).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void exhaustedSequenceMovesOnToTheNextMillisecond() {
+        FixedClockGenerator generator = new FixedClockGenerator(0, 1_800_000_000_000L);
+
+        String last = null;
+        for (int i = 0; i <= SnowflakeTransactionIdGenerator.SEQUENCE_MASK + 1; i++) {
+            String id = generator.nextId();
+            if (last != null) {
+                assertThat(id).isGreaterThan(last);
+            }
+            last = id;
+        }
+        assertThat(generator.issuedAt(last)).contains(Instant.ofEpochMilli(1_800_000_000_001L));
+    }
+
+    @Test
+    void smallClockRegressionKeepsIdsIncreasing() {
+        FixedClockGenerator generator = new FixedClockGenerator(0, 1_800_000_000_000L);
+        String before = generator.nextId();
+
+        generator.now.addAndGet(-500);
+        String after = generator.nextId();
+
+        assertThat(after).isGreaterThan(before);
+    }
+
+    @Test
+    void largeClockRegressionIsRefused() {
+        FixedClockGenerator generator = new FixedClockGenerator(0, 1_800_000_000_000L);
+        generator.nextId();
+
+        generator.now.addAndGet(-20_000);
+
+        assertThatThrownBy(generator::nextId).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void issuedAtReadsTheTimestampBack() {
+        FixedClockGenerator generator = new FixedClockGenerator(42, 1_800_000_000_123L);
+
+        assertThat(generator.issuedAt(generator.nextId())).contains(Instant.ofEpochMilli(1_800_000_000_123L));
+        assertThat(generator.issuedAt("TX1700000000000ab12cd34")).isEmpty();
+    }
+
+    @Test
+    void nodeIdOutOfRangeIsRejected() {
+        assertThatThrownBy(() -> new SnowflakeTransactionIdGenerator(SnowflakeTransactionIdGenerator.MAX_NODE_ID + 1, 10_000))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static final class FixedClockGenerator extends SnowflakeTransactionIdGenerator {
+        private final AtomicLong now;
+
+        FixedClockGenerator(long nodeId, long nowMillis) {
+            super(nodeId, 10_000);
+            this.now = new AtomicLong(nowMillis);
+        }
+
+        @Override
+        long currentTimeMillis() {
+            return now.get();
+        }
+    }
+}
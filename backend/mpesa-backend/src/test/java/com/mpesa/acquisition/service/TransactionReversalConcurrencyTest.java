@@ -0,0 +1,87 @@
+package com.mpesa.acquisition.service;
+
+import com.mpesa.acquisition.PostgresIntegrationTest;
+import com.mpesa.acquisition.datasource.SqlStats;
+import com.mpesa.acquisition.entity.AccountSummary;
+import com.mpesa.acquisition.entity.TransactionHistory;
+import com.mpesa.acquisition.repository.AccountSummaryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionReversalConcurrencyTest extends PostgresIntegrationTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private TransactionLedgerService transactionLedgerService;
+
+    @Autowired
+    private AccountSummaryRepository accountSummaryRepository;
+
+    @Autowired
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Test
+    void exactlyOneOfManyParallelReversalsWins() throws Exception {
+        String accountNumber = unique("reversal");
+        TransactionHistory transaction = transactionLedgerService.record(
+            new TransactionHistory(transactionIdGenerator.nextId(), accountNumber, new BigDecimal("125.00"), "Payment"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS * 4; i++) {
+                Callable<Boolean> reversal = () -> {
+                    start.await();
+                    return transactionLedgerService.reverse(transaction.getTransactionId(), "Duplicate").isPresent();
+                };
+                results.add(executor.submit(reversal));
+            }
+            start.countDown();
+
+            int winners = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    winners++;
+                }
+            }
+            assertThat(winners).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(transactionLedgerService.findStatus(transaction.getTransactionId()))
+            .contains(TransactionHistory.TransactionStatus.REVERSED);
+        assertThat(transactionLedgerService.findByTransactionId(transaction.getTransactionId()))
+            .get().extracting(TransactionHistory::getNarration).isEqualTo("Payment - REVERSED: Duplicate");
+
+        AccountSummary summary = accountSummaryRepository.findById(accountNumber).orElseThrow();
+        assertThat(summary.getSuccessfulCount()).isZero();
+        assertThat(summary.getSuccessfulTotal()).isEqualByComparingTo("0");
+        assertThat(summary.getReversedCount()).isEqualTo(1);
+        assertThat(summary.getReversedTotal()).isEqualByComparingTo("125.00");
+    }
+
+    @Test
+    void reversalIsOneUpdateOfTheHistoryAndOneOfTheSummary() {
+        TransactionHistory transaction = transactionLedgerService.record(
+            new TransactionHistory(transactionIdGenerator.nextId(), unique("reversal"), new BigDecimal("10.00"), "Payment"));
+
+        SqlStats.assertStatementsAtMost(2, () ->
+            assertThat(transactionLedgerService.reverse(transaction.getTransactionId(), "Refund")).isPresent());
+        SqlStats.assertStatementsAtMost(1, () ->
+            assertThat(transactionLedgerService.reverse(transaction.getTransactionId(), "Refund")).isEmpty());
+    }
+}
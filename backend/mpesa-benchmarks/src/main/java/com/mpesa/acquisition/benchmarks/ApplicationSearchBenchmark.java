@@ -0,0 +1,85 @@
+package com.mpesa.acquisition.benchmarks;
+
+import com.mpesa.acquisition.dto.ApplicationView;
+import com.mpesa.acquisition.entity.Application;
+import com.mpesa.acquisition.service.ApplicationSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dashboard type-ahead queries against the application search index, with a linear scan
+ * over the same applications for comparison.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApplicationSearchBenchmark {
+
+    private static final String[] FIRST_NAMES = {"Amina", "Brian", "Chebet", "David", "Esther", "Faith", "George",
+        "Halima", "Isaac", "Joyce", "Kamau", "Lilian", "Mwangi", "Njeri", "Otieno", "Wanjiru"};
+    private static final String[] LAST_NAMES = {"Achieng", "Kiprono", "Mutua", "Ochieng", "Wambui", "Kariuki",
+        "Njoroge", "Omondi", "Chelimo", "Mwende", "Barasa", "Nyambura"};
+    private static final String[] BUSINESSES = {"Traders", "Hardware", "Pharmacy", "Supermarket", "Butchery",
+        "Agrovet", "Salon", "Electronics", "Hotel", "Wholesalers"};
+
+    @Param({"100000"})
+    private int applications;
+
+    private final ApplicationSearchIndex index = new ApplicationSearchIndex();
+    private ApplicationView[] views;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        views = new ApplicationView[applications];
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < applications; i++) {
+            String accountName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                + LAST_NAMES[random.nextInt(LAST_NAMES.length)] + " "
+                + BUSINESSES[random.nextInt(BUSINESSES.length)];
+            String accountNumber = String.format("%010d", random.nextInt(1_000_000_000));
+            views[i] = new ApplicationView((long) i, "KCB Bank", "Nairobi CBD", accountName, accountNumber, null,
+                Application.ApplicationStatus.SUBMITTED, now, now);
+            index.add(views[i]);
+        }
+    }
+
+    @Benchmark
+    public List<ApplicationView> accountNumberPrefix() {
+        return index.search("1234", null, 20);
+    }
+
+    @Benchmark
+    public List<ApplicationView> nameSubstring() {
+        return index.search(null, "ochieng pharm", 20);
+    }
+
+    @Benchmark
+    public List<ApplicationView> nameSubstringShort() {
+        return index.search(null, "an", 20);
+    }
+
+    @Benchmark
+    public List<ApplicationView> nameSubstringRare() {
+        return index.search(null, "halima barasa salon", 20);
+    }
+
+    // What a LIKE '%x%' query has to do, without the database round trip
+    @Benchmark
+    public int nameSubstringScan() {
+        int found = 0;
+        for (ApplicationView view : views) {
+            if (view.accountName().toLowerCase().contains("halima barasa salon") && ++found == 20) {
+                break;
+            }
+        }
+        return found;
+    }
+}
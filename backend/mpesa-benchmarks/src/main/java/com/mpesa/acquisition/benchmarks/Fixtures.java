@@ -0,0 +1,64 @@
+package com.mpesa.acquisition.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.mpesa.acquisition.dto.ApplicationSubmissionRequest;
+import com.mpesa.acquisition.dto.TransactionRequest;
+import com.mpesa.acquisition.entity.Application;
+import com.mpesa.acquisition.entity.TransactionHistory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Sample payloads and an ObjectMapper configured the way Spring Boot configures it.
+ */
+final class Fixtures {
+
+    private Fixtures() {}
+
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .modulesToInstall(new BlackbirdModule())
+            .build();
+    }
+
+    // Without the Blackbird module registered by JacksonConfig
+    static ObjectMapper reflectiveObjectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    }
+
+    static TransactionHistory transaction(int i) {
+        TransactionHistory transaction = new TransactionHistory("TX0369967479159549952" + i, "1234567890",
+            new BigDecimal("1500.00"), "Payment for order #" + i);
+        transaction.setId((long) i);
+        transaction.setCreatedAt(LocalDateTime.of(2024, 1, 15, 10, 30).plusSeconds(i));
+        return transaction;
+    }
+
+    static Application application() {
+        Application application = new Application("Equity Bank", "Westlands Branch", "John Doe",
+            "1234567890", "bank_statement.pdf");
+        application.setId(42L);
+        application.setStatus(Application.ApplicationStatus.SUBMITTED);
+        return application;
+    }
+
+    static TransactionRequest transactionRequest() {
+        return new TransactionRequest("1234567890", new BigDecimal("1500.00"), "Payment for order #1");
+    }
+
+    static TransactionRequest invalidTransactionRequest() {
+        return new TransactionRequest("", new BigDecimal("0.00"), null);
+    }
+
+    static ApplicationSubmissionRequest applicationSubmissionRequest() {
+        return new ApplicationSubmissionRequest(3L, 14L, "Equity Bank", "Westlands Branch", "John Doe",
+            "1234567890", "bank_statement.pdf", "SUBMITTED");
+    }
+}
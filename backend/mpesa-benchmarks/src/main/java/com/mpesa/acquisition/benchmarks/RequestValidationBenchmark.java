@@ -0,0 +1,59 @@
+package com.mpesa.acquisition.benchmarks;
+
+import com.mpesa.acquisition.dto.ApplicationSubmissionRequest;
+import com.mpesa.acquisition.dto.TransactionRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean Validation of the request DTOs, as done for @Valid @RequestBody parameters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private TransactionRequest transactionRequest;
+    private TransactionRequest invalidTransactionRequest;
+    private ApplicationSubmissionRequest applicationSubmissionRequest;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        transactionRequest = Fixtures.transactionRequest();
+        invalidTransactionRequest = Fixtures.invalidTransactionRequest();
+        applicationSubmissionRequest = Fixtures.applicationSubmissionRequest();
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<TransactionRequest>> validTransactionRequest() {
+        return validator.validate(transactionRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<TransactionRequest>> invalidTransactionRequest() {
+        return validator.validate(invalidTransactionRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<ApplicationSubmissionRequest>> validApplicationSubmissionRequest() {
+        return validator.validate(applicationSubmissionRequest);
+    }
+}
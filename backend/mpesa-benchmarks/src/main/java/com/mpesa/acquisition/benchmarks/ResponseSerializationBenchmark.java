@@ -0,0 +1,122 @@
+package com.mpesa.acquisition.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mpesa.acquisition.dto.ApplicationResponse;
+import com.mpesa.acquisition.dto.TransactionHistoryItem;
+import com.mpesa.acquisition.dto.TransactionHistoryResponse;
+import com.mpesa.acquisition.dto.TransactionResponse;
+import com.mpesa.acquisition.entity.Application;
+import com.mpesa.acquisition.entity.TransactionHistory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the typed response records built by the controllers. The
+ * *HashMap benchmarks build the HashMap envelopes and serialize entities reflectively,
+ * as the controllers did before, for comparison. Run with -prof gc for bytes allocated
+ * per response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseSerializationBenchmark {
+
+    @Param({"50"})
+    private int historyPageSize;
+
+    private ObjectMapper objectMapper;
+    private ObjectMapper reflectiveObjectMapper;
+    private TransactionHistory transaction;
+    private List<TransactionHistory> history;
+    private Application application;
+
+    // Stands in for the servlet response buffer, which is reused across writes
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+
+    @Setup
+    public void setUp() {
+        objectMapper = Fixtures.objectMapper();
+        reflectiveObjectMapper = Fixtures.reflectiveObjectMapper();
+        transaction = Fixtures.transaction(1);
+        application = Fixtures.application();
+        history = new ArrayList<>(historyPageSize);
+        for (int i = 0; i < historyPageSize; i++) {
+            history.add(Fixtures.transaction(i));
+        }
+    }
+
+    // Mirrors TransactionController.processTransaction
+    @Benchmark
+    public int transactionResponse() throws Exception {
+        out.reset();
+        objectMapper.writeValue(out, TransactionResponse.success(transaction));
+        return out.size();
+    }
+
+    @Benchmark
+    public int transactionResponseHashMap() throws Exception {
+        out.reset();
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "SUCCESS");
+        response.put("transactionId", transaction.getTransactionId());
+        response.put("accountNumber", transaction.getAccountNumber());
+        response.put("amount", transaction.getAmount());
+        response.put("narration", transaction.getNarration());
+        response.put("timestamp", transaction.getCreatedAt());
+        reflectiveObjectMapper.writeValue(out, response);
+        return out.size();
+    }
+
+    // Mirrors TransactionController.getTransactionHistory
+    @Benchmark
+    public int transactionHistoryResponse() throws Exception {
+        out.reset();
+        List<TransactionHistoryItem> items = new ArrayList<>(history.size());
+        for (TransactionHistory row : history) {
+            items.add(TransactionHistoryItem.from(row));
+        }
+        objectMapper.writeValue(out,
+            TransactionHistoryResponse.success("1234567890", items, "MjAyNC0wMS0xNVQxMDozMDo1MHw1MA"));
+        return out.size();
+    }
+
+    @Benchmark
+    public int transactionHistoryResponseHashMap() throws Exception {
+        out.reset();
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "SUCCESS");
+        response.put("accountNumber", "1234567890");
+        response.put("transactions", history);
+        response.put("hasMore", true);
+        response.put("nextCursor", "MjAyNC0wMS0xNVQxMDozMDo1MHw1MA");
+        reflectiveObjectMapper.writeValue(out, response);
+        return out.size();
+    }
+
+    // Mirrors ApplicationController.getApplicationById
+    @Benchmark
+    public int applicationResponse() throws Exception {
+        out.reset();
+        objectMapper.writeValue(out, ApplicationResponse.success(application));
+        return out.size();
+    }
+
+    @Benchmark
+    public int applicationResponseHashMap() throws Exception {
+        out.reset();
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "SUCCESS");
+        response.put("application", application);
+        reflectiveObjectMapper.writeValue(out, response);
+        return out.size();
+    }
+}
@@ -0,0 +1,43 @@
+package com.mpesa.acquisition.benchmarks;
+
+import com.mpesa.acquisition.service.SnowflakeTransactionIdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transaction ID generation on the payment path, old inline expression against the generator.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionIdBenchmark {
+
+    private final SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(1, 10000);
+
+    @Benchmark
+    public String inlineUuid() {
+        return "TX" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @Benchmark
+    public String snowflakeGenerator() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String inlineUuidContended() {
+        return inlineUuid();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String snowflakeGeneratorContended() {
+        return generator.nextId();
+    }
+}
@@ -0,0 +1,33 @@
+package com.mpesa.acquisition.entity;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The @PrePersist timestamping run on every insert. Lives in the entity package to reach
+ * the protected callbacks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EntityLifecycleBenchmark {
+
+    private final Application application = new Application();
+    private final TransactionHistory transaction = new TransactionHistory();
+
+    @Benchmark
+    public Application applicationPrePersist() {
+        application.onCreate();
+        return application;
+    }
+
+    @Benchmark
+    public TransactionHistory transactionPrePersist() {
+        transaction.onCreate();
+        return transaction;
+    }
+}
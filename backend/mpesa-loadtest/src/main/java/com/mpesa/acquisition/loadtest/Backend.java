@@ -0,0 +1,77 @@
+package com.mpesa.acquisition.loadtest;
+
+import com.mpesa.acquisition.MpesaBackendApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The backend on a random port, against an embedded Postgres or the database at --jdbc-url.
+ */
+final class Backend implements AutoCloseable {
+
+    private final EmbeddedPostgres postgres;
+    private final ConfigurableApplicationContext context;
+
+    private Backend(EmbeddedPostgres postgres, ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.context = context;
+    }
+
+    static Backend start(HarnessConfig config) throws IOException {
+        EmbeddedPostgres postgres = null;
+        String jdbcUrl = config.get("jdbc-url", null);
+        String username = config.get("jdbc-username", "postgres");
+        String password = config.get("jdbc-password", "postgres");
+        if (jdbcUrl == null) {
+            postgres = EmbeddedPostgres.builder().start();
+            jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+        }
+        jdbcUrl += (jdbcUrl.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true";
+
+        List<String> appArgs = new ArrayList<>(List.of(
+            "--spring.datasource.url=" + jdbcUrl,
+            "--spring.datasource.username=" + username,
+            "--spring.datasource.password=" + password,
+            "--server.port=0",
+            "--spring.jpa.show-sql=false",
+            "--logging.level.root=WARN",
+            "--spring.threads.virtual.enabled=" + config.getBoolean("virtual-threads", false)));
+        appArgs.addAll(config.getAppArguments());
+
+        try {
+            return new Backend(postgres, new SpringApplicationBuilder(MpesaBackendApplication.class)
+                .run(appArgs.toArray(String[]::new)));
+        } catch (RuntimeException e) {
+            if (postgres != null) {
+                postgres.close();
+            }
+            throw e;
+        }
+    }
+
+    ConfigurableApplicationContext getContext() {
+        return context;
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    int getPort() {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+}
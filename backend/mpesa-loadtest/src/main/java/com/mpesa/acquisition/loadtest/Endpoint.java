@@ -0,0 +1,31 @@
+package com.mpesa.acquisition.loadtest;
+
+/**
+ * Backend endpoints the harness can drive. The key is used in --mix and --slo.* options.
+ */
+enum Endpoint {
+    TRANSACTION("transaction"),
+    REVERSE("reverse"),
+    HISTORY("history"),
+    BANKS("banks"),
+    SUBMIT("submit");
+
+    private final String key;
+
+    Endpoint(String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+
+    static Endpoint fromKey(String key) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.key.equals(key)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint '" + key + "'");
+    }
+}
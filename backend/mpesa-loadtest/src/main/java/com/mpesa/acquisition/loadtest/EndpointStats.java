@@ -0,0 +1,49 @@
+package com.mpesa.acquisition.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and outcome counters for one endpoint. Latencies are recorded in
+ * microseconds from the request's intended start time, so queueing delay caused by a
+ * slow server is not hidden (coordinated omission).
+ */
+final class EndpointStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final LongAdder errors = new LongAdder();
+
+    void record(long latencyNanos, boolean success) {
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS);
+        histogram.recordValue(micros);
+        if (!success) {
+            errors.increment();
+        }
+    }
+
+    long getCount() {
+        return histogram.getTotalCount();
+    }
+
+    long getErrors() {
+        return errors.sum();
+    }
+
+    double getErrorRate() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getErrors() / count;
+    }
+
+    double getPercentileMillis(double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    double getMaxMillis() {
+        return histogram.getMaxValue() / 1000.0;
+    }
+}
@@ -0,0 +1,110 @@
+package com.mpesa.acquisition.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Harness options, given on the command line as --key=value.
+ *
+ * Options prefixed with app. are passed to the backend with the prefix removed,
+ * for example --app.mpesa.journal.enabled=true.
+ */
+final class HarnessConfig {
+
+    private static final String APP_PREFIX = "app.";
+
+    private final Map<String, String> values = new LinkedHashMap<>();
+
+    static HarnessConfig parse(String[] args) {
+        HarnessConfig config = new HarnessConfig();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value but got '" + arg + "'");
+            }
+            int separator = arg.indexOf('=');
+            config.values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return config;
+    }
+
+    String get(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    int getInt(String key, int defaultValue) {
+        String value = values.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    boolean getBoolean(String key, boolean defaultValue) {
+        String value = values.get(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    /**
+     * Durations are written as 500ms, 30s or 5m.
+     */
+    Duration getDuration(String key, String defaultValue) {
+        String value = values.getOrDefault(key, defaultValue);
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofMillis(Long.parseLong(value));
+    }
+
+    /**
+     * Traffic weights per endpoint, written as transaction:60,history:20,...
+     */
+    Map<Endpoint, Integer> getMix() {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String part : get("mix", "transaction:60,reverse:5,history:20,banks:10,submit:5").split(",")) {
+            String[] weight = part.trim().split(":");
+            mix.put(Endpoint.fromKey(weight[0]), Integer.parseInt(weight[1]));
+        }
+        return mix;
+    }
+
+    /**
+     * Configured SLO limits as (endpoint, metric, limit). Latency metrics are p50, p99 and p999
+     * in milliseconds; error-rate is a fraction of requests.
+     */
+    List<Slo> getSlos() {
+        List<Slo> slos = new ArrayList<>();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (entry.getKey().startsWith("slo.")) {
+                String[] parts = entry.getKey().split("\\.");
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("Expected --slo.<endpoint>.<metric>=<limit> but got '" + entry.getKey() + "'");
+                }
+                slos.add(new Slo(Endpoint.fromKey(parts[1]), parts[2], Double.parseDouble(entry.getValue())));
+            }
+        }
+        return slos;
+    }
+
+    /**
+     * Backend properties as command line arguments, which take precedence over application.properties.
+     */
+    List<String> getAppArguments() {
+        List<String> arguments = new ArrayList<>();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (entry.getKey().startsWith(APP_PREFIX)) {
+                arguments.add("--" + entry.getKey().substring(APP_PREFIX.length()) + "=" + entry.getValue());
+            }
+        }
+        return arguments;
+    }
+
+    record Slo(Endpoint endpoint, String metric, double limit) {
+    }
+}
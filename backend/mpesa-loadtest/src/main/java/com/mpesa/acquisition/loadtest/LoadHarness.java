@@ -0,0 +1,158 @@
+package com.mpesa.acquisition.loadtest;
+
+import com.mpesa.acquisition.entity.Application;
+import com.mpesa.acquisition.entity.Bank;
+import com.mpesa.acquisition.entity.Branch;
+import com.mpesa.acquisition.repository.ApplicationRepository;
+import com.mpesa.acquisition.repository.BankRepository;
+import com.mpesa.acquisition.repository.BranchRepository;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Starts the backend against an embedded Postgres (or --jdbc-url), seeds SUBMITTED accounts
+ * and drives the configured traffic mix against it.
+ *
+ * Exits with status 2 when any configured SLO is breached.
+ */
+public final class LoadHarness {
+
+    private static final int SLO_BREACHED = 2;
+
+    private LoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        HarnessConfig config = HarnessConfig.parse(args);
+
+        String mode = config.get("mode", "closed");
+        Duration warmup = config.getDuration("warmup", "10s");
+        Duration duration = config.getDuration("duration", "60s");
+        int accounts = config.getInt("accounts", 1000);
+        String runId = Long.toString(System.currentTimeMillis() % 1_000_000_000L);
+
+        int exitCode = 0;
+        try (Backend backend = Backend.start(config)) {
+            ConfigurableApplicationContext context = backend.getContext();
+            int port = backend.getPort();
+            List<String> accountNumbers = seedAccounts(context, runId, accounts);
+
+            Bank bank = context.getBean(BankRepository.class).findAllOrderByValue().get(0);
+            Branch branch = context.getBean(BranchRepository.class).findByBankIdOrderByValue(bank.getId()).get(0);
+
+            TrafficDriver driver = new TrafficDriver("http://localhost:" + port, config.getMix(), accountNumbers,
+                bank.getId(), branch.getId(), runId);
+
+            long start = System.nanoTime();
+            long measureFrom = start + warmup.toNanos();
+            long end = measureFrom + duration.toNanos();
+            driver.setMeasureFrom(measureFrom);
+
+            System.out.printf("Running %s-loop load for %s after %s warmup against %d accounts%n",
+                mode, duration, warmup, accounts);
+            if ("open".equals(mode)) {
+                driver.runOpenLoop(config.getInt("rate", 500), start, end);
+            } else if ("closed".equals(mode)) {
+                long clientInterval = config.getDuration("client-interval", "0ms").toNanos();
+                driver.runClosedLoop(config.getInt("clients", 50), clientInterval, start, end);
+            } else {
+                throw new IllegalArgumentException("Unknown mode '" + mode + "', expected open or closed");
+            }
+            driver.awaitInFlight(Duration.ofSeconds(30));
+
+            Map<Endpoint, EndpointStats> stats = driver.getStats();
+            printReport(stats, duration);
+            String reportPath = config.get("report", null);
+            if (reportPath != null) {
+                writeJsonReport(Path.of(reportPath), stats, duration);
+            }
+
+            List<String> breaches = checkSlos(config.getSlos(), stats);
+            breaches.forEach(breach -> System.out.println("SLO BREACH: " + breach));
+            if (!breaches.isEmpty()) {
+                exitCode = SLO_BREACHED;
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    /**
+     * Saves the accounts as SUBMITTED applications.
+     */
+    private static List<String> seedAccounts(ConfigurableApplicationContext context, String runId, int count) {
+        ApplicationRepository applicationRepository = context.getBean(ApplicationRepository.class);
+
+        List<Application> applications = new ArrayList<>(count);
+        List<String> accountNumbers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String accountNumber = "LT" + runId + i;
+            Application application = new Application("Load Test Bank", "Main Branch",
+                "Load Test Account " + i, accountNumber, null);
+            application.setStatus(Application.ApplicationStatus.SUBMITTED);
+            applications.add(application);
+            accountNumbers.add(accountNumber);
+        }
+        applicationRepository.saveAll(applications);
+        return accountNumbers;
+    }
+
+    private static void printReport(Map<Endpoint, EndpointStats> stats, Duration duration) {
+        double seconds = duration.toMillis() / 1000.0;
+        System.out.printf("%-12s %10s %8s %10s %10s %10s %10s %10s%n",
+            "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<Endpoint, EndpointStats> entry : stats.entrySet()) {
+            EndpointStats endpoint = entry.getValue();
+            if (endpoint.getCount() == 0) {
+                continue;
+            }
+            System.out.printf(Locale.ROOT, "%-12s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                entry.getKey().key(), endpoint.getCount(), endpoint.getErrors(), endpoint.getCount() / seconds,
+                endpoint.getPercentileMillis(50), endpoint.getPercentileMillis(99),
+                endpoint.getPercentileMillis(99.9), endpoint.getMaxMillis());
+        }
+    }
+
+    private static void writeJsonReport(Path path, Map<Endpoint, EndpointStats> stats, Duration duration) throws IOException {
+        double seconds = duration.toMillis() / 1000.0;
+        StringBuilder json = new StringBuilder("{\n");
+        String separator = "";
+        for (Map.Entry<Endpoint, EndpointStats> entry : stats.entrySet()) {
+            EndpointStats endpoint = entry.getValue();
+            json.append(separator).append(String.format(Locale.ROOT,
+                "  \"%s\": {\"requests\": %d, \"errors\": %d, \"throughput\": %.1f, \"p50\": %.3f, \"p99\": %.3f, \"p999\": %.3f, \"max\": %.3f}",
+                entry.getKey().key(), endpoint.getCount(), endpoint.getErrors(), endpoint.getCount() / seconds,
+                endpoint.getPercentileMillis(50), endpoint.getPercentileMillis(99),
+                endpoint.getPercentileMillis(99.9), endpoint.getMaxMillis()));
+            separator = ",\n";
+        }
+        json.append("\n}\n");
+        Files.writeString(path, json);
+    }
+
+    private static List<String> checkSlos(List<HarnessConfig.Slo> slos, Map<Endpoint, EndpointStats> stats) {
+        List<String> breaches = new ArrayList<>();
+        for (HarnessConfig.Slo slo : slos) {
+            EndpointStats endpoint = stats.get(slo.endpoint());
+            double actual = switch (slo.metric()) {
+                case "p50" -> endpoint.getPercentileMillis(50);
+                case "p99" -> endpoint.getPercentileMillis(99);
+                case "p999" -> endpoint.getPercentileMillis(99.9);
+                case "error-rate" -> endpoint.getErrorRate();
+                default -> throw new IllegalArgumentException("Unknown SLO metric '" + slo.metric() + "'");
+            };
+            if (actual > slo.limit()) {
+                breaches.add(String.format(Locale.ROOT, "%s %s = %.3f exceeds %.3f",
+                    slo.endpoint().key(), slo.metric(), actual, slo.limit()));
+            }
+        }
+        return breaches;
+    }
+}
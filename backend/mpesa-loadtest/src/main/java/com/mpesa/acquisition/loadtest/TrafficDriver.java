@@ -0,0 +1,213 @@
+package com.mpesa.acquisition.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sends the weighted traffic mix to the backend and records per-endpoint latency.
+ *
+ * Both modes schedule every request at an intended start time and measure latency from
+ * that time. In open-loop mode requests arrive at a fixed rate whatever the server does.
+ * In closed-loop mode each client waits for its response, then sends again at its next
+ * slot, or immediately when it is already late.
+ */
+final class TrafficDriver {
+
+    private static final Pattern TRANSACTION_ID = Pattern.compile("\"transactionId\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final List<String> accountNumbers;
+    private final long bankId;
+    private final long branchId;
+    private final String runId;
+
+    private final Endpoint[] weightedEndpoints;
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    private final ArrayBlockingQueue<String> reversibleTransactions = new ArrayBlockingQueue<>(10_000);
+    private final AtomicLong submissions = new AtomicLong();
+    private final AtomicLong inFlight = new AtomicLong();
+
+    private volatile long measureFromNanos;
+
+    TrafficDriver(String baseUrl, Map<Endpoint, Integer> mix, List<String> accountNumbers,
+                  long bankId, long branchId, String runId) {
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+        this.baseUrl = baseUrl;
+        this.accountNumbers = accountNumbers;
+        this.bankId = bankId;
+        this.branchId = branchId;
+        this.runId = runId;
+
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.weightedEndpoints = new Endpoint[totalWeight];
+        int index = 0;
+        for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                weightedEndpoints[index++] = entry.getKey();
+            }
+        }
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+    }
+
+    Map<Endpoint, EndpointStats> getStats() {
+        return stats;
+    }
+
+    /**
+     * Fixed arrival rate: one request every 1/rate seconds until the end time.
+     */
+    void runOpenLoop(int requestsPerSecond, long startNanos, long endNanos) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+        for (long k = 0; ; k++) {
+            long intended = startNanos + k * intervalNanos;
+            if (intended >= endNanos) {
+                break;
+            }
+            parkUntil(intended);
+            fire(nextEndpoint(), intended);
+        }
+    }
+
+    /**
+     * Fixed number of clients, each pacing itself at the interval (0 for back-to-back requests).
+     * A client that falls behind its schedule still stops at the end time, so an overloaded
+     * server does not stretch the run.
+     */
+    void runClosedLoop(int clients, long clientIntervalNanos, long startNanos, long endNanos) {
+        CompletableFuture<?>[] done = new CompletableFuture<?>[clients];
+        for (int c = 0; c < clients; c++) {
+            CompletableFuture<Void> clientDone = new CompletableFuture<>();
+            done[c] = clientDone;
+            // Spread the first requests over one interval so the clients do not move in lockstep
+            long firstIntended = startNanos + (clientIntervalNanos == 0 ? 0 : clientIntervalNanos * c / clients);
+            runClient(firstIntended, clientIntervalNanos, endNanos, clientDone);
+        }
+        CompletableFuture.allOf(done).join();
+    }
+
+    void setMeasureFrom(long nanos) {
+        measureFromNanos = nanos;
+    }
+
+    void awaitInFlight(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+    }
+
+    private void runClient(long intended, long intervalNanos, long endNanos, CompletableFuture<Void> clientDone) {
+        if (intended >= endNanos || System.nanoTime() >= endNanos) {
+            clientDone.complete(null);
+            return;
+        }
+
+        long delay = intended - System.nanoTime();
+        CompletableFuture<Void> request = delay > 0
+            ? CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS))
+                .thenCompose(ignored -> fire(nextEndpoint(), intended))
+            : fire(nextEndpoint(), intended);
+
+        request.whenCompleteAsync((ignored, error) -> {
+            long now = System.nanoTime();
+            long next = intervalNanos == 0 ? now : intended + intervalNanos;
+            runClient(next, intervalNanos, endNanos, clientDone);
+        });
+    }
+
+    private CompletableFuture<Void> fire(Endpoint endpoint, long intendedNanos) {
+        HttpRequest request;
+        if (endpoint == Endpoint.REVERSE) {
+            String transactionId = reversibleTransactions.poll();
+            if (transactionId == null) {
+                // Nothing to reverse yet
+                endpoint = Endpoint.TRANSACTION;
+                request = buildRequest(endpoint, null);
+            } else {
+                request = buildRequest(endpoint, transactionId);
+            }
+        } else {
+            request = buildRequest(endpoint, null);
+        }
+
+        Endpoint sent = endpoint;
+        inFlight.incrementAndGet();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .handle((response, error) -> {
+                long latency = System.nanoTime() - intendedNanos;
+                boolean success = error == null && response.statusCode() / 100 == 2;
+                if (intendedNanos >= measureFromNanos) {
+                    stats.get(sent).record(latency, success);
+                }
+                if (success && sent == Endpoint.TRANSACTION) {
+                    Matcher matcher = TRANSACTION_ID.matcher(response.body());
+                    if (matcher.find()) {
+                        reversibleTransactions.offer(matcher.group(1));
+                    }
+                }
+                inFlight.decrementAndGet();
+                return null;
+            });
+    }
+
+    private HttpRequest buildRequest(Endpoint endpoint, String transactionId) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String accountNumber = accountNumbers.get(random.nextInt(accountNumbers.size()));
+
+        switch (endpoint) {
+            case TRANSACTION:
+                return post("/api/transaction", "{\"accountNumber\":\"" + accountNumber + "\",\"amount\":"
+                    + (1 + random.nextInt(100_000)) / 100.0 + ",\"narration\":\"Load test payment\"}");
+            case REVERSE:
+                return post("/api/reverse", "{\"transactionId\":\"" + transactionId + "\",\"reason\":\"Load test reversal\"}");
+            case HISTORY:
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/transactions/" + accountNumber)).GET().build();
+            case BANKS:
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/banks")).GET().build();
+            case SUBMIT:
+                return post("/api/applications/submit", "{\"bankId\":" + bankId + ",\"branchId\":" + branchId
+                    + ",\"bankName\":\"Load Test Bank\",\"branchName\":\"Main Branch\",\"accountName\":\"Load Test Applicant\""
+                    + ",\"accountNumber\":\"LS" + runId + submissions.incrementAndGet() + "\",\"status\":\"SUBMITTED\"}");
+            default:
+                throw new IllegalArgumentException("Unsupported endpoint " + endpoint);
+        }
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build();
+    }
+
+    private Endpoint nextEndpoint() {
+        return weightedEndpoints[ThreadLocalRandom.current().nextInt(weightedEndpoints.length)];
+    }
+
+    private static void parkUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
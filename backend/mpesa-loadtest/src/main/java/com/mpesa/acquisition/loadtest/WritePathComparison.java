@@ -0,0 +1,204 @@
+package com.mpesa.acquisition.loadtest;
+
+import com.mpesa.acquisition.entity.Application;
+import com.mpesa.acquisition.entity.Bank;
+import com.mpesa.acquisition.entity.Branch;
+import com.mpesa.acquisition.entity.TransactionHistory;
+import com.mpesa.acquisition.repository.ApplicationRepository;
+import com.mpesa.acquisition.repository.ApplicationSubmissionWriter;
+import com.mpesa.acquisition.repository.BankRepository;
+import com.mpesa.acquisition.repository.BranchRepository;
+import com.mpesa.acquisition.repository.TransactionHistoryBatchWriter;
+import com.mpesa.acquisition.repository.TransactionHistoryRepository;
+import com.mpesa.acquisition.service.TransactionIdGenerator;
+import com.mpesa.acquisition.service.TransactionLedgerService;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Times database write paths that were replaced by a single statement against the statement
+ * that replaced them, in one backend and database:
+ *
+ * - reversal: load, check and save of the transaction, against the conditional UPDATE in
+ *   TransactionLedgerService.reverse
+ * - submission: bank lookup, branch lookup, account number check and save of the
+ *   application, against the INSERT ... SELECT of ApplicationSubmissionWriter
+ *
+ * Both variants run the same number of operations from the same number of threads on rows
+ * nobody else touches. A warmup round of a quarter of the operations comes first.
+ */
+public final class WritePathComparison {
+
+    private WritePathComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        HarnessConfig config = HarnessConfig.parse(args);
+        int threads = config.getInt("threads", 8);
+        int operations = config.getInt("operations", 2000);
+        List<String> paths = List.of(config.get("paths", "reversal,submission").split(","));
+        String runId = Long.toString(System.currentTimeMillis() % 1_000_000_000L);
+
+        try (Backend backend = Backend.start(config)) {
+            Map<String, Variant[]> variants = new LinkedHashMap<>();
+            for (String path : paths) {
+                variants.put(path, switch (path.trim()) {
+                    case "reversal" -> reversalVariants(backend, runId);
+                    case "submission" -> submissionVariants(backend, runId);
+                    default -> throw new IllegalArgumentException("Unknown path '" + path + "', expected reversal or submission");
+                });
+            }
+
+            System.out.printf("%-12s %-20s %10s %10s %10s%n", "path", "variant", "operations", "ops/s", "mean ms");
+            for (Map.Entry<String, Variant[]> entry : variants.entrySet()) {
+                for (Variant variant : entry.getValue()) {
+                    run(variant, threads, Math.max(1, operations / 4));
+                    double seconds = run(variant, threads, operations);
+                    System.out.printf(Locale.ROOT, "%-12s %-20s %10d %10.1f %10.2f%n", entry.getKey(), variant.name(),
+                        operations, operations / seconds, seconds * 1000 * threads / operations);
+                }
+            }
+        }
+        System.exit(0);
+    }
+
+    private static Variant[] reversalVariants(Backend backend, String runId) {
+        TransactionLedgerService transactionLedgerService = backend.getBean(TransactionLedgerService.class);
+        TransactionHistoryRepository transactionHistoryRepository = backend.getBean(TransactionHistoryRepository.class);
+        TransactionHistoryBatchWriter transactionHistoryBatchWriter = backend.getBean(TransactionHistoryBatchWriter.class);
+        TransactionIdGenerator transactionIdGenerator = backend.getBean(TransactionIdGenerator.class);
+
+        // One account per transaction, so reversals do not queue on the same summary row
+        AtomicInteger accounts = new AtomicInteger();
+        Setup recordTransactions = count -> {
+            List<TransactionHistory> transactions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                transactions.add(new TransactionHistory(transactionIdGenerator.nextId(),
+                    "WP" + runId + "-" + accounts.incrementAndGet(), BigDecimal.ONE, "Comparison payment"));
+            }
+            transactionHistoryBatchWriter.insertAll(transactions);
+            return transactions.stream().map(TransactionHistory::getTransactionId).toList();
+        };
+
+        // The path before the conditional UPDATE; concurrent callers could both pass the check
+        Predicate<String> loadCheckSave = transactionId -> {
+            Optional<TransactionHistory> transaction = transactionHistoryRepository.findByTransactionId(transactionId);
+            if (transaction.isEmpty() || transaction.get().getStatus() != TransactionHistory.TransactionStatus.SUCCESS) {
+                return false;
+            }
+            TransactionHistory existing = transaction.get();
+            existing.setStatus(TransactionHistory.TransactionStatus.REVERSED);
+            existing.setNarration(existing.getNarration() + " - REVERSED: Comparison");
+            transactionHistoryRepository.save(existing);
+            return true;
+        };
+
+        return new Variant[] {
+            new Variant("load-check-save", recordTransactions, loadCheckSave),
+            new Variant("conditional-update", recordTransactions,
+                transactionId -> transactionLedgerService.reverse(transactionId, "Comparison").isPresent())
+        };
+    }
+
+    private static Variant[] submissionVariants(Backend backend, String runId) {
+        ApplicationSubmissionWriter applicationSubmissionWriter = backend.getBean(ApplicationSubmissionWriter.class);
+        ApplicationRepository applicationRepository = backend.getBean(ApplicationRepository.class);
+        BankRepository bankRepository = backend.getBean(BankRepository.class);
+        BranchRepository branchRepository = backend.getBean(BranchRepository.class);
+
+        Bank bank = bankRepository.findAllOrderByValue().get(0);
+        Branch branch = branchRepository.findByBankIdOrderByValue(bank.getId()).get(0);
+
+        AtomicInteger submissions = new AtomicInteger();
+        Setup newAccountNumbers = count -> {
+            List<String> accountNumbers = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                accountNumbers.add("WS" + runId + "-" + submissions.incrementAndGet());
+            }
+            return accountNumbers;
+        };
+
+        // The path before ApplicationSubmissionWriter; the account number check raced with other submissions
+        Predicate<String> lookupsAndSave = accountNumber -> {
+            if (bankRepository.findById(bank.getId()).isEmpty()) {
+                return false;
+            }
+            if (branchRepository.findById(branch.getId()).filter(found -> found.getBankId().equals(bank.getId())).isEmpty()) {
+                return false;
+            }
+            if (applicationRepository.existsByAccountNumber(accountNumber)) {
+                return false;
+            }
+            applicationRepository.save(application(accountNumber));
+            return true;
+        };
+
+        return new Variant[] {
+            new Variant("lookups-and-save", newAccountNumbers, lookupsAndSave),
+            new Variant("single-statement", newAccountNumbers, accountNumber ->
+                applicationSubmissionWriter.insert(application(accountNumber), bank.getId(), branch.getId())
+                    == ApplicationSubmissionWriter.Outcome.CREATED)
+        };
+    }
+
+    private static Application application(String accountNumber) {
+        Application application = new Application("Comparison Bank", "Main Branch", "Comparison Applicant", accountNumber, null);
+        application.setStatus(Application.ApplicationStatus.SUBMITTED);
+        return application;
+    }
+
+    /**
+     * Runs the operation on operations fresh keys from the threads and returns the elapsed seconds.
+     */
+    private static double run(Variant variant, int threads, int operations) throws Exception {
+        List<String> keys = variant.setup().create(operations);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger next = new AtomicInteger();
+        try {
+            long start = System.nanoTime();
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    int succeeded = 0;
+                    for (int i = next.getAndIncrement(); i < keys.size(); i = next.getAndIncrement()) {
+                        if (variant.operation().test(keys.get(i))) {
+                            succeeded++;
+                        }
+                    }
+                    return succeeded;
+                }));
+            }
+            int succeeded = 0;
+            for (Future<Integer> result : results) {
+                succeeded += result.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            if (succeeded != keys.size()) {
+                throw new IllegalStateException(variant.name() + " succeeded " + succeeded + " of " + keys.size() + " times");
+            }
+            return seconds;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Setup {
+        List<String> create(int count);
+    }
+
+    private record Variant(String name, Setup setup, Predicate<String> operation) {
+    }
+}